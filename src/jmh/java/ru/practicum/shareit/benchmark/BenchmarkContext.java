@@ -0,0 +1,70 @@
+package ru.practicum.shareit.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItApp;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Поднимает контекст приложения на in-memory H2 и заполняет его {@link BenchmarkFixtures}.
+ * Дополнительные свойства передаются в виде {@code name=value}.
+ */
+public class BenchmarkContext {
+
+    private static final String URL = "jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1";
+
+    private static final List<String> SEQUENCES = List.of("users_seq", "item_requests_seq", "items_seq",
+            "bookings_seq", "comments_seq", "booking_outbox_seq");
+
+    // Шаг последовательностей id - часть схемы, приложение его не меняет. Задаётся до старта, как миграцией;
+    // schema.sql создаёт последовательности только если их ещё нет
+    public static void createSequences(int increment) {
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            for (String sequence : SEQUENCES) {
+                statement.execute("CREATE SEQUENCE IF NOT EXISTS " + sequence + " START WITH 1 INCREMENT BY " + increment);
+                statement.execute("ALTER SEQUENCE " + sequence + " INCREMENT BY " + increment);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static ConfigurableApplicationContext start(int rows, String... properties) {
+        return start(WebApplicationType.NONE, rows, properties);
+    }
+
+    // То же с Tomcat на свободном порту (local.server.port) - для нагрузки через HTTP
+    public static ConfigurableApplicationContext startServer(int rows, String... properties) {
+        return start(WebApplicationType.SERVLET, rows, properties);
+    }
+
+    private static ConfigurableApplicationContext start(WebApplicationType type, int rows, String... properties) {
+        // Аргументы командной строки перекрывают настройки БД из application.properties
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=" + URL,
+                "--spring.datasource.driverClassName=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.sql.init.platform=h2",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--server.port=0",
+                "--logging.level.root=WARN"));
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ShareItApp.class)
+                .web(type)
+                .run(args.toArray(String[]::new));
+        BenchmarkFixtures.load(context.getBean(JdbcTemplate.class), rows);
+        return context;
+    }
+}
@@ -0,0 +1,82 @@
+package ru.practicum.shareit.benchmark;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Тестовые данные для бенчмарков: rows вещей, бронирований и комментариев, rows / 10 пользователей.
+ * Пользователь {@link #HEAVY_USER_ID} - владелец части вещей и автор каждого десятого бронирования.
+ * Каждая сотая вещь содержит в описании слово {@link #SEARCH_WORD}.
+ */
+public class BenchmarkFixtures {
+
+    public static final long HEAVY_USER_ID = 1;
+
+    public static final String SEARCH_WORD = "drill";
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String[] STATUSES = {"WAITING", "APPROVED", "REJECTED"};
+
+    public static void load(JdbcTemplate jdbc, int rows) {
+        int users = Math.max(rows / 10, 2);
+        LocalDateTime now = LocalDateTime.now();
+
+        insert(jdbc, "INSERT INTO users (id, name, email) VALUES (?, ?, ?)", users,
+                i -> new Object[]{i, "user" + i, "user" + i + "@shareit.ru"});
+
+        insert(jdbc, "INSERT INTO items (id, name, description, available, owner_id) VALUES (?, ?, ?, ?, ?)", rows,
+                i -> new Object[]{i, "item " + i,
+                        "description of item " + i + (i % 100 == 0 ? " " + SEARCH_WORD : ""),
+                        i % 5 != 0, 1 + i % users});
+
+        insert(jdbc, "INSERT INTO bookings (id, start, end_date, item_id, booker_id, status) VALUES (?, ?, ?, ?, ?, ?)",
+                rows, i -> {
+                    LocalDateTime start = now.plusDays(i % 200 - 100);
+                    long booker = i % 10 == 0 ? HEAVY_USER_ID : 1 + (i * 7L) % users;
+                    return new Object[]{i, Timestamp.valueOf(start), Timestamp.valueOf(start.plusDays(2)),
+                            1 + i % rows, booker, STATUSES[(int) (i % STATUSES.length)]};
+                });
+
+        insert(jdbc, "INSERT INTO comments (id, text, item_id, author_id, created) VALUES (?, ?, ?, ?, ?)", rows,
+                i -> new Object[]{i, "comment " + i, 1 + i % rows, 1 + (i * 3L) % users,
+                        Timestamp.valueOf(now.minusHours(i % 1000))});
+        jdbc.update("INSERT INTO item_comment_stats (item_id, comment_count, last_comment_at) "
+                + "SELECT item_id, COUNT(*), MAX(created) FROM comments GROUP BY item_id");
+
+        // id вставлены явно: сдвигаем последовательности за них, как это делает IdGenerationConfig при старте
+        for (String table : List.of("users", "items", "bookings", "comments")) {
+            restartSequence(jdbc, table);
+        }
+    }
+
+    private static void restartSequence(JdbcTemplate jdbc, String table) {
+        String sequence = table + "_seq";
+        Long increment = jdbc.queryForObject("SELECT INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES "
+                + "WHERE SEQUENCE_NAME = ?", Long.class, sequence.toUpperCase());
+        Long maxId = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        jdbc.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + (maxId + increment));
+    }
+
+    private static void insert(JdbcTemplate jdbc, String sql, int count, RowFactory rowFactory) {
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (long i = 1; i <= count; i++) {
+            batch.add(rowFactory.row(i));
+            if (batch.size() == BATCH_SIZE) {
+                jdbc.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbc.batchUpdate(sql, batch);
+        }
+    }
+
+    private interface RowFactory {
+        Object[] row(long i);
+    }
+}
@@ -0,0 +1,47 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.service.BookingService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Выборка бронирований по state (бывший filterBookings) для автора и для владельца
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BookingServiceBenchmark {
+
+    @Param({"10000"})
+    private int rows;
+
+    @Param({"ALL", "CURRENT", "PAST", "WAITING"})
+    private String state;
+
+    private ConfigurableApplicationContext context;
+
+    private BookingService bookingService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(rows);
+        bookingService = context.getBean(BookingService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<BookingDto> getBookingsByBooker() {
+        return bookingService.getBookingsByBooker(BenchmarkFixtures.HEAVY_USER_ID, state, 0, 10);
+    }
+
+    @Benchmark
+    public List<BookingDto> getBookingsByOwner() {
+        return bookingService.getBookingsByOwner(BenchmarkFixtures.HEAVY_USER_ID, state, 0, 10);
+    }
+}
@@ -0,0 +1,84 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Проверка права на комментарий (завершённая подтверждённая аренда) для популярной вещи с hotBookings бронями.
+// index=false удаляет idx_bookings_item_booker_status_end: так проверка выглядела до появления индекса
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CommentEligibilityBenchmark {
+
+    private static final long HOT_ITEM_ID = 1;
+
+    private static final String[] STATUSES = {"WAITING", "APPROVED", "REJECTED"};
+
+    @Param({"10000"})
+    private int rows;
+
+    @Param({"100000"})
+    private int hotBookings;
+
+    @Param({"true", "false"})
+    private boolean index;
+
+    private ConfigurableApplicationContext context;
+
+    private BookingRepository bookingRepository;
+
+    private int users;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(rows);
+        bookingRepository = context.getBean(BookingRepository.class);
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        users = Math.max(rows / 10, 2);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> batch = new ArrayList<>();
+        for (long i = 1; i <= hotBookings; i++) {
+            LocalDateTime start = now.plusDays(i % 200 - 100);
+            batch.add(new Object[]{rows + i, Timestamp.valueOf(start), Timestamp.valueOf(start.plusDays(1)),
+                    HOT_ITEM_ID, 1 + i % users, STATUSES[(int) (i % STATUSES.length)]});
+            if (batch.size() == 1000) {
+                insertBookings(jdbc, batch);
+            }
+        }
+        insertBookings(jdbc, batch);
+        if (!index) {
+            jdbc.execute("DROP INDEX idx_bookings_item_booker_status_end");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean existsCompletedRental() {
+        long bookerId = 1 + ThreadLocalRandom.current().nextInt(users);
+        return bookingRepository.existsByItem_IdAndBooker_IdAndStatusAndEndBefore(HOT_ITEM_ID, bookerId,
+                BookingStatus.APPROVED, LocalDateTime.now());
+    }
+
+    private static void insertBookings(JdbcTemplate jdbc, List<Object[]> batch) {
+        if (!batch.isEmpty()) {
+            jdbc.batchUpdate("INSERT INTO bookings (id, start, end_date, item_id, booker_id, status) "
+                    + "VALUES (?, ?, ?, ?, ?, ?)", batch);
+            batch.clear();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package ru.practicum.shareit.benchmark;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Нагрузка через HTTP в обоих режимах исполнения (SHAREIT_VIRTUAL_THREADS): клиентов (@Threads) больше,
+// чем потоков Tomcat на платформенных потоках (200), каждый сразу шлёт следующий запрос.
+// SampleTime даёт перцентили задержки (p99), а число запросов в обработке (http.server.requests.active)
+// снимает InFlightProfiler: in-flight.mean и in-flight.max во вторичных метриках результата
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(400)
+public class ExecutionModeBenchmark {
+
+    @Param({"10000"})
+    private int rows;
+
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient client;
+
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.startServer(rows,
+                "spring.threads.virtual.enabled=" + virtualThreads,
+                "management.observations.long-task-timer.enabled=true",
+                "shareit.metrics.methods.enabled=false");
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        InFlightProfiler.registry = context.getBean(MeterRegistry.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        InFlightProfiler.registry = null;
+        context.close();
+    }
+
+    // Запрос в БД на каждый вызов: брони не кешируются
+    @Benchmark
+    public int getBookings() throws IOException, InterruptedException {
+        return get("/bookings?state=ALL&from=0&size=10", BenchmarkFixtures.HEAVY_USER_ID);
+    }
+
+    // В основном из кешей: вещь - из кеша второго уровня, сводка комментариев - из itemComments
+    @Benchmark
+    public int getItem() throws IOException, InterruptedException {
+        long itemId = 1 + ThreadLocalRandom.current().nextLong(rows);
+        return get("/items/" + itemId, BenchmarkFixtures.HEAVY_USER_ID + 1);
+    }
+
+    private int get(String path, long userId) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("X-Sharer-User-Id", String.valueOf(userId))
+                .GET()
+                .build();
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(path + " -> " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+}
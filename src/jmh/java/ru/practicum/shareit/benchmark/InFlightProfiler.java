@@ -0,0 +1,77 @@
+package ru.practicum.shareit.benchmark;
+
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Число запросов в обработке (http.server.requests.active) раз в 10 мс за итерацию: in-flight.mean и
+// in-flight.max попадают в результаты (-rf json) вторичными метриками. Профайлер, а не @AuxCounters:
+// те не выводятся в режиме SampleTime и суммируются по потокам.
+// Бенчмарки без сервера (registry не задан) метрик не получают
+public class InFlightProfiler implements InternalProfiler {
+
+    private static final long SAMPLE_INTERVAL_MS = 10;
+
+    // Реестр запущенного бенчмарком сервера: сам профайлер создаёт JMH и к состоянию бенчмарка доступа не имеет
+    static volatile MeterRegistry registry;
+
+    private final AtomicLong samples = new AtomicLong();
+
+    private final AtomicLong inFlightSum = new AtomicLong();
+
+    private final AtomicLong inFlightMax = new AtomicLong();
+
+    private ScheduledExecutorService sampler;
+
+    @Override
+    public String getDescription() {
+        return "Requests in flight (http.server.requests.active), sampled every " + SAMPLE_INTERVAL_MS + " ms";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        samples.set(0);
+        inFlightSum.set(0);
+        inFlightMax.set(0);
+        sampler = Executors.newSingleThreadScheduledExecutor();
+        // Сервер первой итерации поднимается в @Setup уже после этого вызова, поэтому реестр читается на каждом шаге
+        sampler.scheduleAtFixedRate(() -> {
+            MeterRegistry current = registry;
+            if (current == null) {
+                return;
+            }
+            LongTaskTimer active = current.find("http.server.requests.active").longTaskTimer();
+            long inFlight = active != null ? active.activeTasks() : 0;
+            samples.incrementAndGet();
+            inFlightSum.addAndGet(inFlight);
+            inFlightMax.accumulateAndGet(inFlight, Math::max);
+        }, SAMPLE_INTERVAL_MS, SAMPLE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams,
+                                                       IterationParams iterationParams, IterationResult result) {
+        sampler.shutdownNow();
+        long count = samples.get();
+        if (count == 0) {
+            return List.of();
+        }
+        return List.of(
+                new ScalarResult("in-flight.mean", (double) inFlightSum.get() / count, "requests",
+                        AggregationPolicy.AVG),
+                new ScalarResult("in-flight.max", inFlightMax.get(), "requests", AggregationPolicy.MAX));
+    }
+}
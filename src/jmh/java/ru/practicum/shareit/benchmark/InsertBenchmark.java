@@ -0,0 +1,76 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Вставка пачки пользователей с вещами в одной транзакции.
+// allocationSize=1 и batchSize=1 соответствуют прежней схеме: обращение к БД за каждым id и по строке на INSERT
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(InsertBenchmark.USERS * (1 + InsertBenchmark.ITEMS_PER_USER))
+public class InsertBenchmark {
+
+    static final int USERS = 100;
+
+    static final int ITEMS_PER_USER = 4;
+
+    @Param({"1", "50"})
+    private int allocationSize;
+
+    @Param({"1", "50"})
+    private int batchSize;
+
+    private ConfigurableApplicationContext context;
+
+    private TransactionTemplate transactionTemplate;
+
+    private UserRepository userRepository;
+
+    private ItemRepository itemRepository;
+
+    private long counter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkContext.createSequences(allocationSize);
+        context = BenchmarkContext.start(1000,
+                "shareit.id.allocation-size=" + allocationSize,
+                "spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        userRepository = context.getBean(UserRepository.class);
+        itemRepository = context.getBean(ItemRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Item> insertUsersWithItems() {
+        return transactionTemplate.execute(status -> {
+            List<User> users = new ArrayList<>(USERS);
+            List<Item> items = new ArrayList<>(USERS * ITEMS_PER_USER);
+            for (int i = 0; i < USERS; i++) {
+                long n = counter++;
+                User user = new User(null, "user " + n, "bench" + n + "@shareit.ru");
+                users.add(user);
+                for (int j = 0; j < ITEMS_PER_USER; j++) {
+                    items.add(new Item(null, "item " + n + "-" + j, "description", true, user, null));
+                }
+            }
+            userRepository.saveAll(users);
+            return itemRepository.saveAll(items);
+        });
+    }
+}
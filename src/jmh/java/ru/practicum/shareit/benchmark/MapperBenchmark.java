@@ -0,0 +1,92 @@
+package ru.practicum.shareit.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.comment.dto.CommentDto;
+import ru.practicum.shareit.comment.mapper.CommentMapper;
+import ru.practicum.shareit.comment.model.Comment;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Преобразование списков сущностей в DTO и сериализация списка BookingDto в JSON, без БД
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MapperBenchmark {
+
+    @Param({"100", "1000"})
+    private int size;
+
+    private List<Booking> bookings;
+
+    private List<Item> items;
+
+    private List<Comment> comments;
+
+    private List<BookingDto> bookingDtos;
+
+    private ObjectMapper objectMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        LocalDateTime now = LocalDateTime.now();
+        bookings = new ArrayList<>(size);
+        items = new ArrayList<>(size);
+        comments = new ArrayList<>(size);
+        for (long i = 0; i < size; i++) {
+            User owner = new User(i, "owner" + i, "owner" + i + "@shareit.ru");
+            User booker = new User(i + size, "booker" + i, "booker" + i + "@shareit.ru");
+            ItemRequest request = new ItemRequest(i, "request " + i, booker, now);
+            Item item = new Item(i, "item " + i, "description of item " + i, true, owner, request);
+            items.add(item);
+            bookings.add(new Booking(i, now.plusDays(1), now.plusDays(2), item, booker, BookingStatus.APPROVED));
+
+            Comment comment = new Comment();
+            comment.setId(i);
+            comment.setText("comment " + i);
+            comment.setItem(item);
+            comment.setAuthor(booker);
+            comment.setCreated(now);
+            comments.add(comment);
+        }
+        bookingDtos = bookings.stream().map(BookingMapper::toDto).toList();
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    @Benchmark
+    public List<BookingDto> bookingMapper() {
+        return bookings.stream().map(BookingMapper::toDto).toList();
+    }
+
+    @Benchmark
+    public List<ItemDto> itemMapper() {
+        return items.stream().map(ItemMapper::toDto).toList();
+    }
+
+    @Benchmark
+    public List<CommentDto> commentMapper() {
+        return comments.stream().map(CommentMapper::toDto).toList();
+    }
+
+    @Benchmark
+    public byte[] serializeBookingDtos() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(bookingDtos);
+    }
+}
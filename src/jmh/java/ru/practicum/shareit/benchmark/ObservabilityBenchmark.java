@@ -0,0 +1,54 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Цена таймеров методов сервисов и репозиториев (shareit.service, shareit.repository) на горячих чтениях.
+// getUserById - один запрос по первичному ключу, где доля накладных расходов наибольшая;
+// getAllItemsByUser - страница вещей с несколькими обращениями к репозиториям
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ObservabilityBenchmark {
+
+    @Param({"10000"})
+    private int rows;
+
+    @Param({"true", "false"})
+    private boolean methodMetrics;
+
+    private ConfigurableApplicationContext context;
+
+    private UserService userService;
+
+    private ItemService itemService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(rows, "shareit.metrics.methods.enabled=" + methodMetrics);
+        userService = context.getBean(UserService.class);
+        itemService = context.getBean(ItemService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public UserDto getUserById() {
+        return userService.getUserById(BenchmarkFixtures.HEAVY_USER_ID);
+    }
+
+    @Benchmark
+    public List<ItemDto> getAllItemsByUser() {
+        return itemService.getAllItemsByUser(BenchmarkFixtures.HEAVY_USER_ID, 0, 10);
+    }
+}
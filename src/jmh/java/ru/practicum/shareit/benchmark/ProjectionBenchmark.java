@@ -0,0 +1,94 @@
+package ru.practicum.shareit.benchmark;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.BookingState;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.BookingSpecifications;
+import ru.practicum.shareit.util.OffsetPageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Страница броней автора: сущности с графом загрузки и цепочкой мапперов (как было до проекций)
+// против BookingView, собранных конструктором в запросе. Сравнивать стоит gc.alloc.rate.norm (байт на операцию)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProjectionBenchmark {
+
+    private static final Sort SORT = Sort.by(Sort.Direction.DESC, "start", "id");
+
+    @Param({"10000"})
+    private int rows;
+
+    @Param({"10", "100"})
+    private int size;
+
+    private ConfigurableApplicationContext context;
+
+    private TransactionTemplate readOnly;
+
+    private EntityManager em;
+
+    private BookingRepository bookingRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(rows);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        em = context.getBean(EntityManager.class);
+        bookingRepository = context.getBean(BookingRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // Прежний BookingRepositoryCustomImpl.findPage: та же спецификация, выборка сущностей с Booking.DETAILS_GRAPH
+    @Benchmark
+    public List<BookingDto> entities() {
+        return readOnly.execute(status -> {
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaQuery<Booking> query = cb.createQuery(Booking.class);
+            Root<Booking> root = query.from(Booking.class);
+            query.select(root)
+                    .where(filter().toPredicate(root, query, cb))
+                    .orderBy(QueryUtils.toOrders(SORT, root, cb));
+            return em.createQuery(query)
+                    .setHint("jakarta.persistence.fetchgraph", em.getEntityGraph(Booking.DETAILS_GRAPH))
+                    .setMaxResults(size)
+                    .getResultList().stream()
+                    .map(BookingMapper::toDto)
+                    .toList();
+        });
+    }
+
+    @Benchmark
+    public List<BookingDto> views() {
+        return readOnly.execute(status -> bookingRepository.findPage(filter(), OffsetPageRequest.of(0, size, SORT))
+                .stream()
+                .map(BookingMapper::toDto)
+                .toList());
+    }
+
+    private static Specification<Booking> filter() {
+        return BookingSpecifications.byBooker(BenchmarkFixtures.HEAVY_USER_ID)
+                .and(BookingSpecifications.byState(BookingState.ALL, LocalDateTime.now()));
+    }
+}
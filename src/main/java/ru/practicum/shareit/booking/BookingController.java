@@ -1,21 +1,38 @@
 package ru.practicum.shareit.booking;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.CreateBookingDto;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.metrics.ConditionalRequests;
+import ru.practicum.shareit.util.NdjsonWriter;
 
+import java.io.IOException;
 import java.util.List;
 
+@Validated
 @RestController
 @RequestMapping("/bookings")
 @RequiredArgsConstructor
 public class BookingController {
 
     private final BookingService bookingService;
+    private final ConditionalRequests conditionalRequests;
+    private final ObjectMapper objectMapper;
 
     // Добавление нового запроса на бронирование
     @PostMapping
@@ -25,6 +42,14 @@ public class BookingController {
         return bookingService.createBooking(userId, bookingDto);
     }
 
+    // Пакетное создание броней: результат (бронь или ошибка) по каждой записи
+    @PostMapping("/batch")
+    public List<BookingBatchResultDto> createBookings(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                      @RequestBody @NotNull @Size(min = 1, max = 500)
+                                                      List<CreateBookingDto> bookingDtos) {
+        return bookingService.createBookings(userId, bookingDtos);
+    }
+
     // Подтверждение / отклонение брони
     @PatchMapping("/{bookingId}")
     public BookingDto approveBooking(@RequestHeader("X-Sharer-User-Id") Long ownerId,
@@ -36,23 +61,57 @@ public class BookingController {
     // Получение информации о бронировании по id (только владелец вещи или автор брони)
     @GetMapping("/{bookingId}")
     public BookingDto getBookingById(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                     @PathVariable Long bookingId) {
+                                     @PathVariable Long bookingId,
+                                     WebRequest request) {
+        if (conditionalRequests.notModified(request, "booking", bookingService.getBookingETag(bookingId, userId))) {
+            return null;
+        }
         return bookingService.getBookingById(bookingId, userId);
     }
 
     // Получение списка бронирований текущего пользователя
     @GetMapping
     public List<BookingDto> getBookingsByBooker(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                                @RequestParam(defaultValue = "ALL") String state) {
-        return bookingService.getBookingsByBooker(userId, state);
+                                                @RequestParam(defaultValue = "ALL") String state,
+                                                @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+                                                @RequestParam(defaultValue = "10") @Positive int size) {
+        return bookingService.getBookingsByBooker(userId, state, from, size);
+    }
+
+    // Все бронирования текущего пользователя по state потоком NDJSON, без постраничности
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamBookingsByBooker(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                       @RequestParam(defaultValue = "ALL") String state,
+                                       HttpServletResponse response) throws IOException {
+        NdjsonWriter writer = new NdjsonWriter(objectMapper, response);
+        bookingService.forEachBookingByBooker(userId, state, writer::write);
+        writer.finish();
     }
 
     // Получение списка бронирований для владельца вещей
     @GetMapping("/owner")
     public List<BookingDto> getBookingsByOwner(
             @RequestHeader("X-Sharer-User-Id") Long ownerId,
-            @RequestParam(defaultValue = "ALL") String state) {
-        return bookingService.getBookingsByOwner(ownerId, state);
+            @RequestParam(defaultValue = "ALL") String state,
+            @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+            @RequestParam(defaultValue = "10") @Positive int size) {
+        return bookingService.getBookingsByOwner(ownerId, state, from, size);
+    }
+
+    // Все бронирования вещей владельца по state потоком NDJSON
+    @GetMapping(value = "/owner", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamBookingsByOwner(@RequestHeader("X-Sharer-User-Id") Long ownerId,
+                                      @RequestParam(defaultValue = "ALL") String state,
+                                      HttpServletResponse response) throws IOException {
+        NdjsonWriter writer = new NdjsonWriter(objectMapper, response);
+        bookingService.forEachBookingByOwner(ownerId, state, writer::write);
+        writer.finish();
+    }
+
+    // Поток изменений броней владельца (SSE) вместо периодического опроса /owner?state=WAITING
+    @GetMapping(value = "/owner/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOwnerBookings(@RequestHeader("X-Sharer-User-Id") Long ownerId) {
+        return bookingService.subscribeOwner(ownerId);
     }
 
     // Удаление бронирования
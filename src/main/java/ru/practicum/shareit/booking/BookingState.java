@@ -0,0 +1,21 @@
+package ru.practicum.shareit.booking;
+
+import java.util.Locale;
+
+// Фильтр списка бронирований, передаваемый в параметре state
+public enum BookingState {
+    ALL,
+    CURRENT,
+    PAST,
+    FUTURE,
+    WAITING,
+    REJECTED;
+
+    public static BookingState from(String state) {
+        try {
+            return valueOf(state.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown state: " + state);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Data;
+
+// Результат обработки одной записи пакетного создания: созданная бронь либо причина отказа
+@Data
+public class BookingBatchResultDto {
+    private int index;
+
+    private BookingDto booking;
+
+    private String error;
+}
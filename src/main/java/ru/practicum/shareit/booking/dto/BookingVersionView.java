@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking.dto;
+
+// Участники брони и версии строк, из которых строится ответ GET /bookings/{bookingId}
+public interface BookingVersionView {
+
+    Long getBookerId();
+
+    Long getOwnerId();
+
+    Long getVersion();
+
+    Long getItemVersion();
+
+    Long getBookerVersion();
+
+    Long getRequestorVersion();
+}
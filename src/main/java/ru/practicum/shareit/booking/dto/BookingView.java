@@ -0,0 +1,23 @@
+package ru.practicum.shareit.booking.dto;
+
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.item.dto.ItemView;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.time.LocalDateTime;
+
+// Бронь со всем, что показывает BookingDto, одной строкой выборки; список броней не загружает сущности
+public record BookingView(Long id, LocalDateTime start, LocalDateTime end, BookingStatus status,
+                          ItemView item, UserDto booker) {
+
+    public BookingView(Long id, LocalDateTime start, LocalDateTime end, BookingStatus status,
+                       Long itemId, String itemName, String itemDescription, Boolean itemAvailable,
+                       Long requestId, String requestDescription, LocalDateTime requestCreated,
+                       Long requestorId, String requestorName, String requestorEmail,
+                       Long bookerId, String bookerName, String bookerEmail) {
+        this(id, start, end, status,
+                new ItemView(itemId, itemName, itemDescription, itemAvailable,
+                        requestId, requestDescription, requestCreated, requestorId, requestorName, requestorEmail),
+                new UserDto(bookerId, bookerName, bookerEmail));
+    }
+}
@@ -0,0 +1,11 @@
+package ru.practicum.shareit.booking.dto;
+
+import java.time.LocalDateTime;
+
+// Дата бронирования, сгруппированная по вещи (результат агрегирующих запросов BookingRepository)
+public interface ItemBookingDate {
+
+    Long getItemId();
+
+    LocalDateTime getDate();
+}
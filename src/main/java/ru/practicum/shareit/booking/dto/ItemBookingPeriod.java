@@ -0,0 +1,7 @@
+package ru.practicum.shareit.booking.dto;
+
+// Период бронирования вместе с id вещи (выборка сразу по нескольким вещам)
+public interface ItemBookingPeriod extends BookingPeriod {
+
+    Long getItemId();
+}
@@ -0,0 +1,35 @@
+package ru.practicum.shareit.booking.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.practicum.shareit.booking.BookingStatus;
+
+import java.time.LocalDateTime;
+
+// Изменение брони, как его видят потребители событий (уведомления, аналитика).
+// id совпадает с id записи outbox: при повторной доставке по нему можно отбросить дубль
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingEvent {
+    private Long id;
+
+    private BookingEventType type;
+
+    private Long bookingId;
+
+    private Long itemId;
+
+    private Long ownerId;
+
+    private Long bookerId;
+
+    private BookingStatus status;
+
+    private LocalDateTime start;
+
+    private LocalDateTime end;
+
+    private LocalDateTime created;
+}
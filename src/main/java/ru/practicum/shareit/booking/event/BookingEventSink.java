@@ -0,0 +1,13 @@
+package ru.practicum.shareit.booking.event;
+
+import java.util.List;
+
+/**
+ * Внешний получатель событий из outbox (shareit.outbox.sink, кроме bus); внутренняя шина получает их всегда.
+ * Вызывается в транзакции ретранслятора до шины: если метод бросил исключение, пачка останется в outbox
+ * и будет отправлена повторно (доставка "хотя бы один раз").
+ */
+public interface BookingEventSink {
+
+    void publish(List<BookingEvent> events);
+}
@@ -0,0 +1,8 @@
+package ru.practicum.shareit.booking.event;
+
+public enum BookingEventType {
+    CREATED,
+    APPROVED,
+    REJECTED,
+    DELETED
+}
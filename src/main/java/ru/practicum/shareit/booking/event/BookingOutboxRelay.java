@@ -0,0 +1,62 @@
+package ru.practicum.shareit.booking.event;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.mapper.BookingOutboxMapper;
+import ru.practicum.shareit.booking.model.BookingOutboxEntry;
+import ru.practicum.shareit.booking.repository.BookingOutboxRepository;
+
+import java.util.List;
+
+// Фоновая пересылка событий из outbox пачками: во внутреннюю шину (её слушает OwnerBookingStreams)
+// и, если настроен, во внешний BookingEventSink. Опрашивается только небольшая таблица outbox, а не bookings.
+// События одной брони доставляются в порядке изменений: следующее изменение брони записывается после фиксации
+// предыдущего и получает больший seq. Порядок событий разных броней между собой не гарантируется
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingOutboxRelay {
+
+    private final BookingOutboxRepository outboxRepository;
+    private final ObjectProvider<BookingEventSink> externalSink;
+    private final ApplicationEventPublisher publisher;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${shareit.outbox.batch-size}")
+    private int batchSize;
+
+    @Scheduled(initialDelayString = "${shareit.outbox.poll-interval}", fixedDelayString = "${shareit.outbox.poll-interval}")
+    public void poll() {
+        try {
+            // Пока outbox заполнен целыми пачками, продолжаем без паузы
+            while (relay() == batchSize) {
+                log.debug("Outbox: отправлена полная пачка, продолжаем");
+            }
+        } catch (RuntimeException e) {
+            log.warn("Outbox: не удалось отправить события, повтор при следующем опросе", e);
+        }
+    }
+
+    // Отправляет одну пачку и удаляет её из outbox в одной транзакции; возвращает размер пачки
+    public int relay() {
+        Integer relayed = transactionTemplate.execute(status -> {
+            List<BookingOutboxEntry> entries = outboxRepository.findAllByOrderBySeqAsc(Limit.of(batchSize));
+            if (entries.isEmpty()) {
+                return 0;
+            }
+            List<BookingEvent> events = entries.stream().map(BookingOutboxMapper::toEvent).toList();
+            externalSink.ifAvailable(sink -> sink.publish(events));
+            events.forEach(publisher::publishEvent);
+            outboxRepository.deleteAllInBatch(entries);
+            return entries.size();
+        });
+        return relayed == null ? 0 : relayed;
+    }
+}
@@ -1,6 +1,7 @@
 package ru.practicum.shareit.booking.mapper;
 
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingView;
 import ru.practicum.shareit.booking.dto.CreateBookingDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.mapper.ItemMapper;
@@ -27,6 +28,18 @@ public class BookingMapper {
         return bookingDto;
     }
 
+    // Преобразование строки списка BookingView → BookingDto
+    public static BookingDto toDto(BookingView booking) {
+        BookingDto bookingDto = new BookingDto();
+        bookingDto.setId(booking.id());
+        bookingDto.setStart(booking.start());
+        bookingDto.setEnd(booking.end());
+        bookingDto.setItem(ItemMapper.toDto(booking.item()));
+        bookingDto.setBooker(booking.booker());
+        bookingDto.setStatus(booking.status());
+        return bookingDto;
+    }
+
     // Преобразование BookingDto → Booking
     public static Booking toEntity(CreateBookingDto dto) {
         if (dto == null) {
@@ -0,0 +1,33 @@
+package ru.practicum.shareit.booking.mapper;
+
+import ru.practicum.shareit.booking.event.BookingEvent;
+import ru.practicum.shareit.booking.event.BookingEventType;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingOutboxEntry;
+
+import java.time.LocalDateTime;
+
+public class BookingOutboxMapper {
+
+    // Booking → запись outbox (копия полей на момент изменения)
+    public static BookingOutboxEntry toEntry(Booking booking, BookingEventType type) {
+        BookingOutboxEntry entry = new BookingOutboxEntry();
+        entry.setType(type);
+        entry.setBookingId(booking.getId());
+        entry.setItemId(booking.getItem().getId());
+        entry.setOwnerId(booking.getItem().getOwner().getId());
+        entry.setBookerId(booking.getBooker().getId());
+        entry.setStatus(booking.getStatus());
+        entry.setStart(booking.getStart());
+        entry.setEnd(booking.getEnd());
+        entry.setCreated(LocalDateTime.now());
+        return entry;
+    }
+
+    // Запись outbox → событие для потребителей
+    public static BookingEvent toEvent(BookingOutboxEntry entry) {
+        return new BookingEvent(entry.getId(), entry.getType(), entry.getBookingId(), entry.getItemId(),
+                entry.getOwnerId(), entry.getBookerId(), entry.getStatus(), entry.getStart(), entry.getEnd(),
+                entry.getCreated());
+    }
+}
@@ -0,0 +1,58 @@
+package ru.practicum.shareit.booking.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.event.BookingEventType;
+import ru.practicum.shareit.util.PooledSequence;
+
+import java.time.LocalDateTime;
+
+// Событие по брони, записанное в той же транзакции, что и само изменение.
+// Хранит копию полей, а не ссылку: бронь к моменту отправки может быть уже удалена
+@Entity
+@Table(name = "booking_outbox")
+@Getter
+@Setter
+@NoArgsConstructor
+public class BookingOutboxEntry {
+
+    @Id
+    @PooledSequence("booking_outbox_seq")
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private BookingEventType type;
+
+    @Column(name = "booking_id", nullable = false)
+    private Long bookingId;
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    @Column(name = "booker_id", nullable = false)
+    private Long bookerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private BookingStatus status;
+
+    @Column(nullable = false)
+    private LocalDateTime start;
+
+    @Column(name = "end_date", nullable = false)
+    private LocalDateTime end;
+
+    @Column(nullable = false)
+    private LocalDateTime created;
+
+    // Номер в порядке вставки, выдаёт БД (identity без блоков на экземпляр); по нему события и пересылаются
+    @Column(insertable = false, updatable = false)
+    private Long seq;
+}
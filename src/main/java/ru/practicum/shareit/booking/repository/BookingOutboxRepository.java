@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking.repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import ru.practicum.shareit.booking.model.BookingOutboxEntry;
+
+import java.util.List;
+
+public interface BookingOutboxRepository extends JpaRepository<BookingOutboxEntry, Long> {
+
+    // Самые старые неотправленные события в порядке записи. Строки, которые забрал другой экземпляр,
+    // не пропускаются: выборка ждёт его фиксации, и пачки отправляются по очереди, а не вперемешку
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<BookingOutboxEntry> findAllByOrderBySeqAsc(Limit limit);
+}
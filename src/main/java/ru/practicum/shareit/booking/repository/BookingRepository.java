@@ -1,24 +1,45 @@
 package ru.practicum.shareit.booking.repository;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingPeriod;
+import ru.practicum.shareit.booking.dto.BookingVersionView;
+import ru.practicum.shareit.booking.dto.ItemBookingDate;
+import ru.practicum.shareit.booking.dto.ItemBookingPeriod;
 import ru.practicum.shareit.booking.model.Booking;
-import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface BookingRepository extends JpaRepository<Booking, Long> {
+public interface BookingRepository extends JpaRepository<Booking, Long>, BookingRepositoryCustom {
 
-    // Все бронирования, сделанные пользователем
-    List<Booking> findByBookerOrderByStartDesc(User booker);
+    @Override
+    @EntityGraph(Booking.DETAILS_GRAPH)
+    Optional<Booking> findById(Long id);
 
-    // Все бронирования по владельцу вещи
-    List<Booking> findByItemOwnerOrderByStartDesc(User owner);
+    // Актуальный статус из БД, минуя уже загруженную в контекст сущность
+    @Query("select b.status from Booking b where b.id = :id")
+    BookingStatus findStatusById(@Param("id") Long id);
 
-    boolean existsByItem_IdAndBooker_IdAndEndBefore(Long itemId, Long userId, LocalDateTime end);
+    // Только участники и версии для условного GET: одна строка по первичным ключам, без сущностей
+    @Query("select b.booker.id as bookerId, i.owner.id as ownerId, b.version as version, " +
+            "i.version as itemVersion, u.version as bookerVersion, ru.version as requestorVersion " +
+            "from Booking b join b.item i join b.booker u left join i.request r left join r.requestor ru " +
+            "where b.id = :id")
+    Optional<BookingVersionView> findVersionById(@Param("id") Long id);
+
+    // Есть ли у пользователя завершённая аренда вещи с заданным статусом. Проверка существования выполняется
+    // с ограничением в одну строку: поиск по idx_bookings_item_booker_status_end останавливается на первой
+    // подходящей записи индекса, сколько бы завершённых аренд ни было
+    boolean existsByItem_IdAndBooker_IdAndStatusAndEndBefore(Long itemId, Long bookerId, BookingStatus status,
+                                                             LocalDateTime now);
 
     // Пересечение при полуоткрытом интервале [start, end)
     boolean existsByItem_IdAndStatusAndStartBeforeAndEndAfter(
@@ -27,4 +48,37 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
             LocalDateTime requestedEnd,
             LocalDateTime requestedStart
     );
+
+    // Начало последнего (уже начавшегося) бронирования с заданным статусом для каждой вещи из списка
+    @Query("select b.item.id as itemId, max(b.start) as date from Booking b " +
+            "where b.item.id in :itemIds and b.status = :status and b.start <= :now " +
+            "group by b.item.id")
+    List<ItemBookingDate> findLastBookingDates(@Param("itemIds") Collection<Long> itemIds,
+                                               @Param("status") BookingStatus status,
+                                               @Param("now") LocalDateTime now);
+
+    // Начало ближайшего будущего бронирования с заданным статусом для каждой вещи из списка
+    @Query("select b.item.id as itemId, min(b.start) as date from Booking b " +
+            "where b.item.id in :itemIds and b.status = :status and b.start > :now " +
+            "group by b.item.id")
+    List<ItemBookingDate> findNextBookingDates(@Param("itemIds") Collection<Long> itemIds,
+                                               @Param("status") BookingStatus status,
+                                               @Param("now") LocalDateTime now);
+
+    // Периоды бронирований вещи с заданным статусом, пересекающиеся с окном [from, to), по возрастанию начала
+    @Query("select b.start as start, b.end as end from Booking b " +
+            "where b.item.id = :itemId and b.status = :status and b.start < :to and b.end > :from " +
+            "order by b.start")
+    List<BookingPeriod> findPeriods(@Param("itemId") Long itemId,
+                                    @Param("status") BookingStatus status,
+                                    @Param("from") LocalDateTime from,
+                                    @Param("to") LocalDateTime to);
+
+    // Периоды бронирований с заданным статусом сразу для нескольких вещей, пересекающиеся с окном [from, to)
+    @Query("select b.item.id as itemId, b.start as start, b.end as end from Booking b " +
+            "where b.item.id in :itemIds and b.status = :status and b.start < :to and b.end > :from")
+    List<ItemBookingPeriod> findPeriods(@Param("itemIds") Collection<Long> itemIds,
+                                        @Param("status") BookingStatus status,
+                                        @Param("from") LocalDateTime from,
+                                        @Param("to") LocalDateTime to);
 }
\ No newline at end of file
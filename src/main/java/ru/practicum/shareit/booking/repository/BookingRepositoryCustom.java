@@ -0,0 +1,15 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.booking.dto.BookingView;
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.util.List;
+
+public interface BookingRepositoryCustom {
+
+    // Одна страница бронирований по условию, без дополнительного count-запроса.
+    // Вещь, её запрос и автор бронирования выбираются тем же запросом прямо в BookingView
+    List<BookingView> findPage(Specification<Booking> spec, Pageable pageable);
+}
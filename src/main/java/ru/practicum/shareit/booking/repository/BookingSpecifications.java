@@ -0,0 +1,44 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.booking.BookingState;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.time.LocalDateTime;
+
+// Условия выборки бронирований: по автору, по владельцу вещи и по state
+public class BookingSpecifications {
+
+    public static Specification<Booking> byBooker(Long bookerId) {
+        return (root, query, cb) -> cb.equal(root.get("booker").get("id"), bookerId);
+    }
+
+    public static Specification<Booking> byItemOwner(Long ownerId) {
+        return (root, query, cb) -> cb.equal(root.get("item").get("owner").get("id"), ownerId);
+    }
+
+    public static Specification<Booking> byState(BookingState state, LocalDateTime now) {
+        return switch (state) {
+            case ALL -> (root, query, cb) -> cb.conjunction();
+            case CURRENT -> (root, query, cb) -> cb.and(
+                    cb.lessThan(root.get("start"), now),
+                    cb.greaterThan(root.get("end"), now));
+            case PAST -> (root, query, cb) -> cb.lessThan(root.get("end"), now);
+            case FUTURE -> (root, query, cb) -> cb.greaterThan(root.get("start"), now);
+            case WAITING -> byStatus(BookingStatus.WAITING);
+            case REJECTED -> byStatus(BookingStatus.REJECTED);
+        };
+    }
+
+    // Брони после (start, id) в порядке start desc, id desc - курсор выгрузки порциями
+    public static Specification<Booking> before(LocalDateTime start, Long id) {
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("start"), start),
+                cb.and(cb.equal(root.get("start"), start), cb.lessThan(root.get("id"), id)));
+    }
+
+    private static Specification<Booking> byStatus(BookingStatus status) {
+        return (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+}
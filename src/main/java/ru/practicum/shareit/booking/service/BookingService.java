@@ -1,21 +1,36 @@
 package ru.practicum.shareit.booking.service;
 
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.CreateBookingDto;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface BookingService {
 
     BookingDto createBooking(Long userId, CreateBookingDto bookingDto);
 
+    List<BookingBatchResultDto> createBookings(Long userId, List<CreateBookingDto> bookingDtos);
+
     BookingDto approveBooking(Long bookingId, Long ownerId, boolean approved);
 
     BookingDto getBookingById(Long bookingId, Long userId);
 
-    List<BookingDto> getBookingsByBooker(Long userId, String state);
+    Optional<String> getBookingETag(Long bookingId, Long userId);
+
+    List<BookingDto> getBookingsByBooker(Long userId, String state, int from, int size);
+
+    List<BookingDto> getBookingsByOwner(Long userId, String state, int from, int size);
+
+    // Все брони по state без постраничности; параметры проверяются до передачи первой брони в action
+    void forEachBookingByBooker(Long userId, String state, Consumer<BookingDto> action);
+
+    void forEachBookingByOwner(Long userId, String state, Consumer<BookingDto> action);
 
-    List<BookingDto> getBookingsByOwner(Long userId, String state);
+    SseEmitter subscribeOwner(Long ownerId);
 
     void deleteBooking(Long bookingId);
 }
@@ -1,34 +1,65 @@
 package ru.practicum.shareit.booking.service;
 
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.BookingState;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingView;
 import ru.practicum.shareit.booking.dto.CreateBookingDto;
+import ru.practicum.shareit.booking.dto.ItemBookingPeriod;
+import ru.practicum.shareit.booking.event.BookingEventType;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.mapper.BookingOutboxMapper;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingOutboxRepository;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.BookingSpecifications;
+import ru.practicum.shareit.booking.stream.OwnerBookingStreams;
 import ru.practicum.shareit.exception.*;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.metrics.ConditionalRequests;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserExistenceCache;
+import ru.practicum.shareit.util.OffsetPageRequest;
 
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class BookingServiceImpl implements BookingService {
 
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "start", "id");
+
     private final BookingRepository bookingRepository;
+    private final BookingOutboxRepository outboxRepository;
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
+    private final UserExistenceCache userExistenceCache;
+    private final OwnerBookingStreams ownerBookingStreams;
+    private final Validator validator;
+
+    @Value("${shareit.export.chunk-size}")
+    private int exportChunkSize;
 
 
     @Override
+    @Transactional
     public BookingDto createBooking(Long userId, CreateBookingDto bookingDto) {
 
         if (bookingDto.getStart().isEqual(bookingDto.getEnd())) {
@@ -62,13 +93,116 @@ public class BookingServiceImpl implements BookingService {
         }
 
         Booking booking = BookingMapper.toEntity(bookingDto);
+        booking.setId(null);
         booking.setBooker(booker);
         booking.setItem(item);
         booking.setStatus(BookingStatus.WAITING);
-        return BookingMapper.toDto(bookingRepository.save(booking));
+        Booking saved = bookingRepository.save(booking);
+        outboxRepository.save(BookingOutboxMapper.toEntry(saved, BookingEventType.CREATED));
+        return BookingMapper.toDto(saved);
+    }
+
+    // Пакетное создание: проверки выполняются по всему набору сразу (один запрос за вещами,
+    // один за подтверждёнными бронями), ошибки возвращаются по каждой записи отдельно
+    @Override
+    @Transactional
+    public List<BookingBatchResultDto> createBookings(Long userId, List<CreateBookingDto> bookingDtos) {
+        User booker = userRepository.findById(userId)
+                .orElseThrow(() -> new UserNotFoundException(userId));
+
+        List<BookingBatchResultDto> results = new ArrayList<>(bookingDtos.size());
+        Map<Integer, CreateBookingDto> candidates = new LinkedHashMap<>();
+        for (int i = 0; i < bookingDtos.size(); i++) {
+            CreateBookingDto dto = bookingDtos.get(i);
+            BookingBatchResultDto result = new BookingBatchResultDto();
+            result.setIndex(i);
+            results.add(result);
+
+            String error = validateEntry(dto);
+            if (error != null) {
+                result.setError(error);
+            } else {
+                candidates.put(i, dto);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return results;
+        }
+
+        Set<Long> itemIds = candidates.values().stream()
+                .map(CreateBookingDto::getItemId)
+                .collect(Collectors.toSet());
+        Map<Long, Item> items = itemRepository.findAllWithRequestByIdIn(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+
+        // Подтверждённые брони всех вещей пакета в общем окне дат, пересечения проверяем в памяти
+        LocalDateTime from = candidates.values().stream()
+                .map(CreateBookingDto::getStart).min(Comparator.naturalOrder()).orElseThrow();
+        LocalDateTime to = candidates.values().stream()
+                .map(CreateBookingDto::getEnd).max(Comparator.naturalOrder()).orElseThrow();
+        Map<Long, List<ItemBookingPeriod>> approved = bookingRepository
+                .findPeriods(items.keySet(), BookingStatus.APPROVED, from, to).stream()
+                .collect(Collectors.groupingBy(ItemBookingPeriod::getItemId));
+
+        List<Booking> bookings = new ArrayList<>();
+        List<BookingBatchResultDto> created = new ArrayList<>();
+        candidates.forEach((index, dto) -> {
+            BookingBatchResultDto result = results.get(index);
+            Item item = items.get(dto.getItemId());
+            if (item == null) {
+                result.setError("Вещь с id " + dto.getItemId() + " не найдена");
+            } else if (Objects.equals(item.getOwner().getId(), userId)) {
+                result.setError("Владелец не может бронировать собственную вещь");
+            } else if (!item.getAvailable()) {
+                result.setError("Предмет недоступен для бронирования");
+            } else if (approved.getOrDefault(item.getId(), List.of()).stream()
+                    .anyMatch(p -> p.getStart().isBefore(dto.getEnd()) && p.getEnd().isAfter(dto.getStart()))) {
+                result.setError("Период пересекается с уже подтверждённым бронированием");
+            } else {
+                Booking booking = BookingMapper.toEntity(dto);
+                booking.setId(null);
+                booking.setBooker(booker);
+                booking.setItem(item);
+                booking.setStatus(BookingStatus.WAITING);
+                bookings.add(booking);
+                created.add(result);
+            }
+        });
+
+        // id выдаются последовательностью блоками, поэтому вставка уходит JDBC-пакетами
+        List<Booking> saved = bookingRepository.saveAll(bookings);
+        outboxRepository.saveAll(saved.stream()
+                .map(booking -> BookingOutboxMapper.toEntry(booking, BookingEventType.CREATED))
+                .toList());
+        for (int i = 0; i < saved.size(); i++) {
+            created.get(i).setBooking(BookingMapper.toDto(saved.get(i)));
+        }
+        return results;
+    }
+
+    // Те же проверки, что и для одиночной брони, но без исключений
+    private String validateEntry(CreateBookingDto dto) {
+        if (dto == null) {
+            return "Пустая запись";
+        }
+        Set<ConstraintViolation<CreateBookingDto>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        if (dto.getStart().isEqual(dto.getEnd())) {
+            return "Дата начала и окончания бронирования не могут совпадать";
+        }
+        if (dto.getEnd().isBefore(dto.getStart())) {
+            return "Дата окончания не может быть раньше даты начала";
+        }
+        return null;
     }
 
     @Override
+    @Transactional
     public BookingDto approveBooking(Long bookingId, Long ownerId, boolean approved) {
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new BookingNotFoundException(bookingId));
@@ -77,15 +211,29 @@ public class BookingServiceImpl implements BookingService {
             throw new AccessDeniedException("Только владелец может подтверждать бронирование");
         }
 
-        if (booking.getStatus() != BookingStatus.WAITING) {
+        // Решения по броням одной вещи принимаются по очереди (блокировка строки вещи),
+        // брони разных вещей подтверждаются параллельно
+        itemRepository.findByIdForUpdate(booking.getItem().getId());
+
+        // Статус и пересечения проверяются уже под блокировкой
+        if (bookingRepository.findStatusById(bookingId) != BookingStatus.WAITING) {
             throw new IllegalStateException("Бронирование уже рассмотрено");
         }
 
+        if (approved && bookingRepository.existsByItem_IdAndStatusAndStartBeforeAndEndAfter(
+                booking.getItem().getId(), BookingStatus.APPROVED, booking.getEnd(), booking.getStart())) {
+            throw new ConflictException("Период пересекается с уже подтверждённым бронированием");
+        }
+
         booking.setStatus(approved ? BookingStatus.APPROVED : BookingStatus.REJECTED);
-        return BookingMapper.toDto(bookingRepository.save(booking));
+        Booking saved = bookingRepository.save(booking);
+        outboxRepository.save(BookingOutboxMapper.toEntry(saved,
+                approved ? BookingEventType.APPROVED : BookingEventType.REJECTED));
+        return BookingMapper.toDto(saved);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public BookingDto getBookingById(Long bookingId, Long userId) {
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new BookingNotFoundException(bookingId));
@@ -101,48 +249,93 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
-    public List<BookingDto> getBookingsByBooker(Long userId, String state) {
-        User booker = userRepository.findById(userId)
-                .orElseThrow(() -> new UserNotFoundException(userId));
+    @Transactional(readOnly = true)
+    public Optional<String> getBookingETag(Long bookingId, Long userId) {
+        // Постороннему тег не отдаётся: getBookingById ответит ему ошибкой
+        return bookingRepository.findVersionById(bookingId)
+                .filter(version -> version.getBookerId().equals(userId) || version.getOwnerId().equals(userId))
+                .map(version -> ConditionalRequests.etag(version.getVersion(), version.getItemVersion(),
+                        version.getBookerVersion(), version.getRequestorVersion()));
+    }
 
-        List<Booking> bookings = filterBookings(
-                bookingRepository.findByBookerOrderByStartDesc(booker),
-                state
-        );
-        return bookings.stream().map(BookingMapper::toDto).collect(Collectors.toList());
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookingDto> getBookingsByBooker(Long userId, String state, int from, int size) {
+        if (!userExistenceCache.exists(userId)) {
+            throw new UserNotFoundException(userId);
+        }
+
+        return findBookings(BookingSpecifications.byBooker(userId), BookingState.from(state), from, size);
     }
 
     @Override
-    public List<BookingDto> getBookingsByOwner(Long userId, String state) {
-        User owner = userRepository.findById(userId)
-                .orElseThrow(() -> new UserNotFoundException(userId));
+    @Transactional(readOnly = true)
+    public List<BookingDto> getBookingsByOwner(Long userId, String state, int from, int size) {
+        if (!userExistenceCache.exists(userId)) {
+            throw new UserNotFoundException(userId);
+        }
 
-        List<Booking> bookings = filterBookings(
-                bookingRepository.findByItemOwnerOrderByStartDesc(owner),
-                state
-        );
-        return bookings.stream().map(BookingMapper::toDto).collect(Collectors.toList());
+        return findBookings(BookingSpecifications.byItemOwner(userId), BookingState.from(state), from, size);
     }
 
-    // Фильтрация по state
-    private List<Booking> filterBookings(List<Booking> bookings, String state) {
-        LocalDateTime now = LocalDateTime.now();
-        return bookings.stream().filter(booking -> switch (state.toUpperCase()) {
-            case "ALL" -> true;
-            case "CURRENT" -> now.isAfter(booking.getStart()) && now.isBefore(booking.getEnd());
-            case "PAST" -> now.isAfter(booking.getEnd());
-            case "FUTURE" -> now.isBefore(booking.getStart());
-            case "WAITING" -> booking.getStatus() == BookingStatus.WAITING;
-            case "REJECTED" -> booking.getStatus() == BookingStatus.REJECTED;
-            default -> throw new IllegalArgumentException("Unknown state: " + state);
-        }).collect(Collectors.toList());
+    @Override
+    public void forEachBookingByBooker(Long userId, String state, Consumer<BookingDto> action) {
+        if (!userExistenceCache.exists(userId)) {
+            throw new UserNotFoundException(userId);
+        }
+
+        exportBookings(BookingSpecifications.byBooker(userId), BookingState.from(state), action);
     }
 
     @Override
-    public void deleteBooking(Long bookingId) {
-        if (!bookingRepository.existsById(bookingId)) {
-            throw new BookingNotFoundException(bookingId);
+    public void forEachBookingByOwner(Long userId, String state, Consumer<BookingDto> action) {
+        if (!userExistenceCache.exists(userId)) {
+            throw new UserNotFoundException(userId);
+        }
+
+        exportBookings(BookingSpecifications.byItemOwner(userId), BookingState.from(state), action);
+    }
+
+    // Выгрузка порциями по ключу (start, id): в памяти не больше exportChunkSize броней, а соединение с БД
+    // занято только на время чтения очередной порции, не на время записи ответа медленному клиенту
+    private void exportBookings(Specification<Booking> filter, BookingState state, Consumer<BookingDto> action) {
+        Specification<Booking> spec = filter.and(BookingSpecifications.byState(state, LocalDateTime.now()));
+        Pageable chunk = OffsetPageRequest.of(0, exportChunkSize, NEWEST_FIRST);
+        List<BookingView> rows = bookingRepository.findPage(spec, chunk);
+        while (!rows.isEmpty()) {
+            rows.forEach(row -> action.accept(BookingMapper.toDto(row)));
+            if (rows.size() < exportChunkSize) {
+                break;
+            }
+            BookingView last = rows.get(rows.size() - 1);
+            rows = bookingRepository.findPage(spec.and(BookingSpecifications.before(last.start(), last.id())), chunk);
+        }
+    }
+
+    // Фильтрация по state и постраничная выборка выполняются в БД
+    private List<BookingDto> findBookings(Specification<Booking> filter, BookingState state, int from, int size) {
+        Specification<Booking> spec = filter.and(BookingSpecifications.byState(state, LocalDateTime.now()));
+        Pageable page = OffsetPageRequest.of(from, size, NEWEST_FIRST);
+        return bookingRepository.findPage(spec, page).stream()
+                .map(BookingMapper::toDto)
+                .collect(Collectors.toList());
+    }
+
+    // Поток изменений броней владельца (новые WAITING, подтверждения, отклонения, удаления)
+    @Override
+    public SseEmitter subscribeOwner(Long ownerId) {
+        if (!userExistenceCache.exists(ownerId)) {
+            throw new UserNotFoundException(ownerId);
         }
-        bookingRepository.deleteById(bookingId);
+        return ownerBookingStreams.subscribe(ownerId);
+    }
+
+    @Override
+    @Transactional
+    public void deleteBooking(Long bookingId) {
+        Booking booking = bookingRepository.findById(bookingId)
+                .orElseThrow(() -> new BookingNotFoundException(bookingId));
+        bookingRepository.delete(booking);
+        outboxRepository.save(BookingOutboxMapper.toEntry(booking, BookingEventType.DELETED));
     }
 }
\ No newline at end of file
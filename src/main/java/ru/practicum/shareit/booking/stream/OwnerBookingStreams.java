@@ -0,0 +1,99 @@
+package ru.practicum.shareit.booking.stream;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.event.BookingEvent;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * SSE-подписки владельцев на изменения их броней. События приходят из outbox
+ * ({@link ru.practicum.shareit.booking.event.BookingOutboxRelay}) через внутреннюю шину,
+ * поэтому подписчики не опрашивают таблицу bookings.
+ * <p>
+ * Шина - в пределах одного экземпляра: событие, пересланное другим экземпляром, сюда не попадёт.
+ */
+@Component
+public class OwnerBookingStreams implements DisposableBean {
+
+    private final Map<Long, Set<OwnerBookingSubscription>> subscriptions = new ConcurrentHashMap<>();
+
+    // Отправка в сокет идёт на виртуальных потоках: медленный клиент не задерживает ретранслятор и других
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final int bufferSize;
+    private final long timeout;
+
+    public OwnerBookingStreams(@Value("${shareit.stream.buffer-size}") int bufferSize,
+                               @Value("${shareit.stream.timeout}") long timeout,
+                               MeterRegistry meterRegistry) {
+        this.bufferSize = bufferSize;
+        this.timeout = timeout;
+        Gauge.builder("shareit.stream.connections", subscriptions,
+                        map -> map.values().stream().mapToInt(Set::size).sum())
+                .description("Открытые SSE-подключения владельцев")
+                .register(meterRegistry);
+    }
+
+    public SseEmitter subscribe(Long ownerId) {
+        SseEmitter emitter = new SseEmitter(timeout);
+        OwnerBookingSubscription subscription = new OwnerBookingSubscription(ownerId, emitter, bufferSize, executor,
+                () -> unsubscribe(ownerId));
+        subscriptions.compute(ownerId, (id, owned) -> {
+            Set<OwnerBookingSubscription> result = owned != null ? owned : ConcurrentHashMap.newKeySet();
+            result.add(subscription);
+            return result;
+        });
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(e -> subscription.close());
+        // Первое сообщение сразу отправляет клиенту заголовки ответа, не дожидаясь событий
+        subscription.offer(SseEmitter.event().comment("connected"));
+        return emitter;
+    }
+
+    @EventListener
+    public void onBookingEvent(BookingEvent event) {
+        Set<OwnerBookingSubscription> owned = subscriptions.get(event.getOwnerId());
+        if (owned == null || owned.isEmpty()) {
+            return;
+        }
+        for (OwnerBookingSubscription subscription : owned) {
+            subscription.offer(SseEmitter.event()
+                    .id(String.valueOf(event.getId()))
+                    .name(event.getType().name())
+                    .data(event, MediaType.APPLICATION_JSON));
+        }
+    }
+
+    // Комментарий-пинг: прокси не закрывают простаивающие подключения, а оборванные обнаруживаются при записи
+    @Scheduled(fixedDelayString = "${shareit.stream.heartbeat-interval}")
+    public void heartbeat() {
+        subscriptions.values().forEach(owned ->
+                owned.forEach(subscription -> subscription.offer(SseEmitter.event().comment("ping"))));
+    }
+
+    @Override
+    public void destroy() {
+        subscriptions.values().forEach(owned -> owned.forEach(subscription -> subscription.getEmitter().complete()));
+        executor.shutdownNow();
+    }
+
+    private void unsubscribe(Long ownerId) {
+        subscriptions.computeIfPresent(ownerId, (id, owned) -> {
+            owned.removeIf(OwnerBookingSubscription::isClosed);
+            return owned.isEmpty() ? null : owned;
+        });
+    }
+}
@@ -0,0 +1,85 @@
+package ru.practicum.shareit.booking.stream;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Одно SSE-подключение владельца: ограниченная очередь событий и не более одной задачи отправки за раз.
+// Пока подключение простаивает, оно не занимает поток
+@Slf4j
+class OwnerBookingSubscription {
+
+    private final Long ownerId;
+    private final SseEmitter emitter;
+    private final Queue<SseEmitter.SseEventBuilder> buffer;
+    private final Executor executor;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final Runnable onClose;
+
+    OwnerBookingSubscription(Long ownerId, SseEmitter emitter, int bufferSize, Executor executor, Runnable onClose) {
+        this.ownerId = ownerId;
+        this.emitter = emitter;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.executor = executor;
+        this.onClose = onClose;
+    }
+
+    SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    // Ставит событие в очередь; клиент, который не успевает читать, отключается (переподключится сам)
+    void offer(SseEmitter.SseEventBuilder event) {
+        if (closed.get()) {
+            return;
+        }
+        if (!buffer.offer(event)) {
+            log.debug("SSE: очередь владельца {} переполнена, подключение закрыто", ownerId);
+            close();
+            emitter.complete();
+            return;
+        }
+        scheduleDrain();
+    }
+
+    boolean isClosed() {
+        return closed.get();
+    }
+
+    void close() {
+        if (closed.compareAndSet(false, true)) {
+            buffer.clear();
+            onClose.run();
+        }
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            SseEmitter.SseEventBuilder event;
+            while (!closed.get() && (event = buffer.poll()) != null) {
+                emitter.send(event);
+            }
+        } catch (IOException | IllegalStateException e) {
+            close();
+            emitter.completeWithError(e);
+        } finally {
+            draining.set(false);
+        }
+        // Событие могло прийти между последней выборкой и сбросом флага
+        if (!closed.get() && !buffer.isEmpty()) {
+            scheduleDrain();
+        }
+    }
+}
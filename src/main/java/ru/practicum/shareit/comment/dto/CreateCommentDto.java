@@ -1,11 +1,13 @@
 package ru.practicum.shareit.comment.dto;
 
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 import lombok.Data;
 
 @Data
 public class CreateCommentDto {
 
     @NotBlank(message = "Комментарий не должен быть пустым")
+    @Size(max = 1024, message = "Комментарий не должен быть длиннее 1024 символов")
     private String text;
 }
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.comment.dto;
+
+import java.time.LocalDateTime;
+
+// Агрегат комментариев вещи вместе с версией её строки, прочитанные одним запросом
+public interface ItemCommentStatsView {
+
+    Long getItemId();
+
+    Long getVersion();
+
+    // null, если у вещи ещё нет строки агрегата
+    Long getCommentCount();
+
+    LocalDateTime getLastCommentAt();
+}
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.comment.dto;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Сводка комментариев вещи для карточки: число, время последнего и несколько последних (новые первыми).
+// Неизменяемая: хранится в кеше и заменяется загрузкой заново
+@Value
+public class ItemCommentSummary {
+
+    public static final ItemCommentSummary EMPTY = new ItemCommentSummary(0, null, List.of());
+
+    long count;
+
+    LocalDateTime lastCommentAt;
+
+    List<CommentDto> latest;
+}
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.comment.dto;
+
+import java.time.LocalDateTime;
+
+// Комментарий с именем автора для выборки последних комментариев нескольких вещей
+public interface ItemCommentView {
+
+    Long getId();
+
+    Long getItemId();
+
+    String getText();
+
+    String getAuthorName();
+
+    LocalDateTime getCreated();
+}
@@ -2,6 +2,7 @@ package ru.practicum.shareit.comment.mapper;
 
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.comment.dto.CreateCommentDto;
+import ru.practicum.shareit.comment.dto.ItemCommentView;
 import ru.practicum.shareit.comment.model.Comment;
 
 import java.time.LocalDateTime;
@@ -16,6 +17,15 @@ public class CommentMapper {
         return dto;
     }
 
+    public static CommentDto toDto(ItemCommentView view) {
+        CommentDto dto = new CommentDto();
+        dto.setId(view.getId());
+        dto.setText(view.getText());
+        dto.setAuthorName(view.getAuthorName());
+        dto.setCreated(view.getCreated());
+        return dto;
+    }
+
     public static Comment toEntity(CreateCommentDto dto) {
         Comment comment = new Comment();
         comment.setText(dto.getText());
@@ -1,12 +1,33 @@
 package ru.practicum.shareit.comment.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.comment.dto.ItemCommentView;
 import ru.practicum.shareit.comment.model.Comment;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long> {
-    List<Comment> findByItemId(Long itemId);
+
+    // Страница комментариев вещи вместе с авторами
+    @Query("select c from Comment c join fetch c.author where c.item.id = :itemId")
+    List<Comment> findPageByItemId(@Param("itemId") Long itemId, Pageable pageable);
+
+    // Проверка при повторной записи комментариев из журнала асинхронного приёма
+    boolean existsByItem_IdAndAuthor_IdAndCreated(Long itemId, Long authorId, LocalDateTime created);
+
+    // Не больше limit последних комментариев каждой из вещей одним запросом (новые первыми)
+    @Query(value = "SELECT c.id AS id, c.item_id AS itemId, c.text AS text, u.name AS authorName, c.created AS created " +
+            "FROM (SELECT cc.*, ROW_NUMBER() OVER (PARTITION BY cc.item_id ORDER BY cc.created DESC, cc.id DESC) AS rn " +
+            "      FROM comments cc WHERE cc.item_id IN (:itemIds)) c " +
+            "JOIN users u ON u.id = c.author_id " +
+            "WHERE c.rn <= :limit " +
+            "ORDER BY c.item_id, c.rn", nativeQuery = true)
+    List<ItemCommentView> findLatestByItemIds(@Param("itemIds") Collection<Long> itemIds, @Param("limit") int limit);
 }
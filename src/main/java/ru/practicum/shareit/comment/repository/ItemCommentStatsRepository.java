@@ -0,0 +1,36 @@
+package ru.practicum.shareit.comment.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.comment.dto.ItemCommentStatsView;
+import ru.practicum.shareit.comment.model.ItemCommentStats;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ItemCommentStatsRepository extends JpaRepository<ItemCommentStats, Long> {
+
+    // Учёт нового комментария; 0 - строки агрегата для вещи ещё нет
+    @Modifying
+    @Query("update ItemCommentStats s set s.commentCount = s.commentCount + 1, s.lastCommentAt = :created " +
+            "where s.itemId = :itemId")
+    int increment(@Param("itemId") Long itemId, @Param("created") LocalDateTime created);
+
+    // Учёт пачки комментариев вещи. Время последнего не уходит назад: пачка из журнала может быть старше
+    // уже учтённых комментариев
+    @Modifying
+    @Query("update ItemCommentStats s set s.commentCount = s.commentCount + :count, " +
+            "s.lastCommentAt = case when s.lastCommentAt > :lastCreated then s.lastCommentAt else :lastCreated end " +
+            "where s.itemId = :itemId")
+    int add(@Param("itemId") Long itemId, @Param("count") long count, @Param("lastCreated") LocalDateTime lastCreated);
+
+    // Агрегаты вещей с версиями строк items. Комментарий увеличивает версию вещи в той же транзакции,
+    // что и агрегат, поэтому в одной выборке они согласованы
+    @Query("select i.id as itemId, i.version as version, s.commentCount as commentCount, " +
+            "s.lastCommentAt as lastCommentAt " +
+            "from Item i left join ItemCommentStats s on s.itemId = i.id where i.id in :itemIds")
+    List<ItemCommentStatsView> findWithItemVersions(@Param("itemIds") Collection<Long> itemIds);
+}
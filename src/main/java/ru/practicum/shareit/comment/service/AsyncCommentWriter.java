@@ -0,0 +1,497 @@
+package ru.practicum.shareit.comment.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.comment.dto.CommentDto;
+import ru.practicum.shareit.comment.model.Comment;
+import ru.practicum.shareit.comment.model.ItemCommentStats;
+import ru.practicum.shareit.comment.repository.CommentRepository;
+import ru.practicum.shareit.comment.repository.ItemCommentStatsRepository;
+import ru.practicum.shareit.exception.ServiceUnavailableException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Асинхронная запись комментариев (shareit.comments.async.enabled=true) для всплесков на популярных вещах.
+ * Принятый комментарий дописывается в журнал на диске с fsync и ставится в ограниченную очередь; при полной
+ * очереди приём отклоняется с 503. Поток записи забирает из очереди всё накопившееся (до batch-size) и
+ * сохраняет одной транзакцией: вставки уходят JDBC-пакетом, а строка вещи, агрегат item_comment_stats и
+ * кешированная сводка обновляются один раз на вещь за пачку, а не на каждый комментарий.
+ * Журнал очищается, когда записано всё принятое; при старте комментарии из него, которых нет в БД,
+ * записываются до начала приёма.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.comments.async.enabled", havingValue = "true")
+public class AsyncCommentWriter implements SmartLifecycle {
+
+    public static final String METRIC_PREFIX = "shareit.comments.ingest";
+
+    // Останавливается после веб-сервера (его фаза - SmartLifecycle.DEFAULT_PHASE - 2048): новых запросов
+    // уже нет, и очередь дописывается в БД целиком
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    // Журнал больше этого пересобирается из ещё не записанных комментариев, даже если очередь не пустеет
+    private static final long COMPACT_THRESHOLD = 64L * 1024 * 1024;
+    private static final long POLL_TIMEOUT_MS = 100;
+    private static final long MIN_RETRY_DELAY_MS = 100;
+    private static final long MAX_RETRY_DELAY_MS = 30_000;
+
+    private final CommentRepository commentRepository;
+    private final ItemRepository itemRepository;
+    private final UserRepository userRepository;
+    private final ItemCommentStatsRepository statsRepository;
+    private final ItemCommentSummaries commentSummaries;
+    private final EntityManagerFactory entityManagerFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<Entry> queue;
+    private final int capacity;
+    private final int batchSize;
+    private final Path journalPath;
+    private final Timer flushTimer;
+    private final DistributionSummary batchSizes;
+    private final Counter dropped;
+
+    // Журнал, очередь и счётчик pending меняются вместе под этой блокировкой. Блокировки - ReentrantLock,
+    // а не synchronized: под ними идёт запись в файл, а монитор закрепил бы виртуальный поток за носителем
+    private final ReentrantLock journalLock = new ReentrantLock();
+    private FileChannel journal;
+    // Принятые и ещё не записанные в БД: ожидающие fsync, в очереди и в пачке, которую пишет поток
+    private long pending;
+    // Номер последней дописанной в журнал строки
+    private long appended;
+
+    // Групповой fsync: один force покрывает все строки, дописанные к его началу
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private volatile long synced;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public AsyncCommentWriter(CommentRepository commentRepository,
+                              ItemRepository itemRepository,
+                              UserRepository userRepository,
+                              ItemCommentStatsRepository statsRepository,
+                              ItemCommentSummaries commentSummaries,
+                              EntityManagerFactory entityManagerFactory,
+                              PlatformTransactionManager transactionManager,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${shareit.comments.async.queue-capacity}") int queueCapacity,
+                              @Value("${shareit.comments.async.batch-size}") int batchSize,
+                              @Value("${shareit.comments.async.journal}") Path journalPath) {
+        this.commentRepository = commentRepository;
+        this.itemRepository = itemRepository;
+        this.userRepository = userRepository;
+        this.statsRepository = statsRepository;
+        this.commentSummaries = commentSummaries;
+        this.entityManagerFactory = entityManagerFactory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.capacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.journalPath = journalPath;
+        Gauge.builder(METRIC_PREFIX + ".queue", queue, BlockingQueue::size)
+                .description("Принятые комментарии, ожидающие записи в БД")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder(METRIC_PREFIX + ".flush")
+                .description("Запись пачки комментариев, включая повторы после ошибок")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder(METRIC_PREFIX + ".batch")
+                .description("Комментариев в записанной пачке")
+                .register(meterRegistry);
+        this.dropped = Counter.builder(METRIC_PREFIX + ".dropped")
+                .description("Принятые комментарии, которые нельзя записать (вещь или автор удалены)")
+                .register(meterRegistry);
+    }
+
+    // Ответ 202 отдаётся только после fsync журнала, поэтому принятый комментарий переживает падение процесса.
+    // Строка дописывается под блокировкой, а fsync - после неё, общий для всех, кто успел дописать к его началу.
+    // Права автора проверены вызывающим; id комментарий получит при записи
+    public CommentDto accept(Long itemId, Long authorId, String authorName, String text) {
+        Entry entry = new Entry(itemId, authorId, authorName, text, LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+        byte[] line = toLine(entry);
+        long number;
+        journalLock.lock();
+        try {
+            if (!running) {
+                throw new ServiceUnavailableException("Приём комментариев остановлен");
+            }
+            // pending учитывает и ожидающих fsync, поэтому место в очереди им гарантировано
+            if (pending >= capacity) {
+                throw new ServiceUnavailableException("Очередь комментариев переполнена, повторите позже");
+            }
+            journal.write(ByteBuffer.wrap(line));
+            number = ++appended;
+            pending++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            journalLock.unlock();
+        }
+
+        try {
+            sync(number);
+        } catch (IOException e) {
+            journalLock.lock();
+            try {
+                pending--;
+            } finally {
+                journalLock.unlock();
+            }
+            // Строка могла остаться в журнале: тогда комментарий запишется при следующем запуске
+            throw new UncheckedIOException(e);
+        }
+        queue.add(entry);
+        return entry.toDto(null);
+    }
+
+    // Пока один поток выполняет force, остальные ждут на блокировке; следующий за ним force покрывает
+    // всех дописавших за это время, и большинству ожидавших fsync уже не нужен
+    private void sync(long number) throws IOException {
+        syncLock.lock();
+        try {
+            if (synced >= number) {
+                return;
+            }
+            long target;
+            FileChannel channel;
+            journalLock.lock();
+            try {
+                target = appended;
+                channel = journal;
+            } finally {
+                journalLock.unlock();
+            }
+            channel.force(false);
+            synced = target;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    @Override
+    public void start() {
+        try {
+            if (journalPath.getParent() != null) {
+                Files.createDirectories(journalPath.getParent());
+            }
+            List<Entry> journaled = readJournal();
+            journal = openJournal();
+            running = true;
+            replay(journaled);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        worker = new Thread(this::run, "comment-writer");
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            worker = null;
+        }
+        journalLock.lock();
+        try {
+            if (journal != null) {
+                journal.close();
+            }
+        } catch (IOException e) {
+            log.warn("Не удалось закрыть журнал комментариев {}", journalPath, e);
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    // После остановки поток дописывает оставшееся в очереди; если БД недоступна, комментарии остаются в журнале
+    private void run() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Запись комментариев прервана при остановке, {} из журнала {} будут записаны при запуске",
+                        queue.size() + batch.size(), journalPath, e);
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Комментарии из журнала, ещё не попавшие в БД, записываются до начала приёма
+    private void replay(List<Entry> journaled) {
+        if (journaled.isEmpty()) {
+            return;
+        }
+        List<Entry> missing = transactionTemplate.execute(status -> notWritten(journaled));
+        log.info("В журнале {} комментариев, из них не записано в БД: {}", journaled.size(), missing.size());
+        journalLock.lock();
+        try {
+            pending = missing.size();
+        } finally {
+            journalLock.unlock();
+        }
+        for (int from = 0; from < missing.size(); from += batchSize) {
+            flush(missing.subList(from, Math.min(missing.size(), from + batchSize)));
+        }
+        if (missing.isEmpty()) {
+            completed(0);
+        }
+    }
+
+    private void flush(List<Entry> batch) {
+        flushTimer.record(() -> {
+            try {
+                writeWithRetry(batch);
+            } catch (DataIntegrityViolationException e) {
+                // Пачку не принимает БД из-за отдельных комментариев (например, автор удалён после приёма):
+                // они пишутся по одному, и отвергнутые отбрасываются
+                for (Entry entry : batch) {
+                    try {
+                        writeWithRetry(List.of(entry));
+                    } catch (DataIntegrityViolationException single) {
+                        log.error("Комментарий отброшен: {}", entry, single);
+                        dropped.increment();
+                    }
+                }
+            }
+        });
+        batchSizes.record(batch.size());
+        completed(batch.size());
+    }
+
+    // Недоступность БД пережидается с нарастающей паузой: очередь тем временем заполняется, и приём отвечает 503.
+    // Ответ на фиксацию мог потеряться после успешной записи, поэтому повтор пропускает уже записанное
+    private void writeWithRetry(List<Entry> batch) {
+        long delay = MIN_RETRY_DELAY_MS;
+        boolean retry = false;
+        while (true) {
+            try {
+                boolean recheck = retry;
+                Set<Long> written = transactionTemplate.execute(status ->
+                        write(recheck ? notWritten(batch) : batch));
+                // Сводки удаляются после фиксации: загрузка до неё прочитала бы агрегаты без этой пачки.
+                // Вещи - тоже: в кеше второго уровня у них версия до блокировки пачкой
+                written.forEach(itemId -> {
+                    commentSummaries.evict(itemId);
+                    entityManagerFactory.getCache().evict(Item.class, itemId);
+                });
+                return;
+            } catch (DataIntegrityViolationException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                if (!running) {
+                    throw e;
+                }
+                log.warn("Не удалось записать {} комментариев, повтор через {} мс", batch.size(), delay, e);
+                pause(delay);
+                delay = Math.min(delay * 2, MAX_RETRY_DELAY_MS);
+                retry = true;
+            }
+        }
+    }
+
+    // Вещи блокируются по возрастанию id: пишущие параллельно экземпляры не ждут друг друга по кругу
+    private Set<Long> write(List<Entry> batch) {
+        Map<Long, List<Entry>> byItem = batch.stream()
+                .collect(Collectors.groupingBy(Entry::itemId, TreeMap::new, Collectors.toList()));
+        Set<Long> written = new TreeSet<>();
+        for (Map.Entry<Long, List<Entry>> group : byItem.entrySet()) {
+            Long itemId = group.getKey();
+            List<Entry> entries = group.getValue();
+            // Блокировка строки и новая версия вещи - как при синхронном добавлении, но раз на пачку
+            Optional<Item> item = itemRepository.findByIdForNewVersion(itemId);
+            if (item.isEmpty()) {
+                log.warn("Вещь {} удалена, отброшено комментариев: {}", itemId, entries.size());
+                dropped.increment(entries.size());
+                continue;
+            }
+
+            List<Comment> comments = new ArrayList<>(entries.size());
+            for (Entry entry : entries) {
+                Comment comment = new Comment();
+                comment.setText(entry.text());
+                comment.setCreated(entry.created());
+                comment.setItem(item.get());
+                comment.setAuthor(userRepository.getReferenceById(entry.authorId()));
+                comments.add(comment);
+            }
+            commentRepository.saveAll(comments);
+
+            LocalDateTime lastCreated = entries.stream().map(Entry::created)
+                    .max(Comparator.naturalOrder()).orElseThrow();
+            if (statsRepository.add(itemId, entries.size(), lastCreated) == 0) {
+                statsRepository.save(new ItemCommentStats(itemId, entries.size(), lastCreated));
+            }
+            written.add(itemId);
+        }
+        return written;
+    }
+
+    private List<Entry> notWritten(List<Entry> entries) {
+        return entries.stream()
+                .filter(entry -> !commentRepository.existsByItem_IdAndAuthor_IdAndCreated(
+                        entry.itemId(), entry.authorId(), entry.created()))
+                .toList();
+    }
+
+    // Всё принятое записано - журнал очищается; иначе слишком большой журнал пересобирается из очереди
+    private void completed(int count) {
+        journalLock.lock();
+        try {
+            pending -= count;
+            // Очищать и пересобирать можно, только когда все принятые строки уже в очереди, а не ждут fsync
+            if (pending == 0) {
+                journal.truncate(0);
+                journal.force(true);
+            } else if (pending == queue.size() && journal.size() > COMPACT_THRESHOLD) {
+                compactJournal();
+            }
+        } catch (IOException e) {
+            // Журнал лишь длиннее нужного: уже записанное при повторе будет пропущено
+            log.warn("Не удалось сократить журнал комментариев {}", journalPath, e);
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    private void compactJournal() throws IOException {
+        Path compacted = journalPath.resolveSibling(journalPath.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Entry entry : queue) {
+                channel.write(ByteBuffer.wrap(toLine(entry)));
+            }
+            channel.force(true);
+        }
+        journal.close();
+        Files.move(compacted, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        journal = openJournal();
+    }
+
+    private FileChannel openJournal() throws IOException {
+        return FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    private List<Entry> readJournal() throws IOException {
+        if (!Files.exists(journalPath)) {
+            return List.of();
+        }
+        List<Entry> entries = new ArrayList<>();
+        for (String line : Files.readAllLines(journalPath, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                entries.add(objectMapper.readValue(line, Entry.class));
+            } catch (JsonProcessingException e) {
+                // Недописанная строка при падении во время записи: приём этого комментария не был подтверждён
+                log.warn("Пропущена повреждённая строка журнала комментариев {}: {}", journalPath, line);
+            }
+        }
+        return entries;
+    }
+
+    private byte[] toLine(Entry entry) {
+        try {
+            return (objectMapper.writeValueAsString(entry) + '\n').getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void pause(long millis) {
+        long deadline = System.currentTimeMillis() + millis;
+        while (running && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(Math.min(POLL_TIMEOUT_MS, millis));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // Строка журнала; по (вещь, автор, время) комментарий находится в БД при повторной записи
+    record Entry(Long itemId, Long authorId, String authorName, String text, LocalDateTime created) {
+
+        CommentDto toDto(Long id) {
+            CommentDto dto = new CommentDto();
+            dto.setId(id);
+            dto.setText(text);
+            dto.setAuthorName(authorName);
+            dto.setCreated(created);
+            return dto;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package ru.practicum.shareit.comment.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.comment.dto.CommentDto;
+import ru.practicum.shareit.comment.dto.ItemCommentStatsView;
+import ru.practicum.shareit.comment.dto.ItemCommentSummary;
+import ru.practicum.shareit.comment.mapper.CommentMapper;
+import ru.practicum.shareit.comment.repository.CommentRepository;
+import ru.practicum.shareit.comment.repository.ItemCommentStatsRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Кеш сводок комментариев по вещам. Промахи для целой страницы вещей загружаются двумя запросами
+ * (агрегаты из item_comment_stats и последние комментарии), поэтому время ответа не зависит
+ * от того, сколько комментариев накопилось у вещи.
+ * <p>
+ * Сводка хранится с версией строки вещи, при которой она прочитана. Каждый комментарий увеличивает версию
+ * вещи, поэтому сводка старше версии, которую видит читатель, загружается заново: и когда загрузка,
+ * начатая до фиксации комментария, попала в кеш уже после неё, и когда комментарий записан другим экземпляром.
+ */
+@Component
+public class ItemCommentSummaries {
+
+    public static final String CACHE_NAME = "itemComments";
+
+    private final Cache<Object, Object> cache;
+    private final CommentRepository commentRepository;
+    private final ItemCommentStatsRepository statsRepository;
+    private final int latestLimit;
+
+    public ItemCommentSummaries(CacheManager cacheManager,
+                                CommentRepository commentRepository,
+                                ItemCommentStatsRepository statsRepository,
+                                @Value("${shareit.comments.latest}") int latestLimit) {
+        this.cache = ((CaffeineCache) cacheManager.getCache(CACHE_NAME)).getNativeCache();
+        this.commentRepository = commentRepository;
+        this.statsRepository = statsRepository;
+        this.latestLimit = latestLimit;
+    }
+
+    // itemVersions - id вещей и версии их строк, из которых строится ответ
+    public Map<Long, ItemCommentSummary> getAll(Map<Long, Long> itemVersions) {
+        Map<Long, ItemCommentSummary> result = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        itemVersions.forEach((itemId, version) -> {
+            Versioned cached = (Versioned) cache.getIfPresent(itemId);
+            if (cached != null && version != null && cached.version() >= version) {
+                result.put(itemId, cached.summary());
+            } else {
+                missing.add(itemId);
+            }
+        });
+        if (!missing.isEmpty()) {
+            load(missing).forEach((itemId, loaded) -> {
+                result.put(itemId, loaded.summary());
+                // Более новую сводку, положенную параллельной загрузкой, не заменяем
+                cache.asMap().merge(itemId, loaded,
+                        (current, candidate) -> ((Versioned) current).version() >= ((Versioned) candidate).version()
+                                ? current : candidate);
+            });
+        }
+        return result;
+    }
+
+    // Вызывается после фиксации транзакции с новыми комментариями вещи. Сводку не дополняем на месте:
+    // её и так отбросит новая версия вещи, а удаление освобождает место сразу
+    public void evict(Long itemId) {
+        cache.invalidate(itemId);
+    }
+
+    private Map<Long, Versioned> load(List<Long> itemIds) {
+        List<ItemCommentStatsView> stats = statsRepository.findWithItemVersions(itemIds);
+        Map<Long, List<CommentDto>> latest = commentRepository.findLatestByItemIds(itemIds, latestLimit).stream()
+                .collect(Collectors.groupingBy(view -> view.getItemId(),
+                        Collectors.mapping(CommentMapper::toDto, Collectors.toList())));
+
+        // Последние комментарии читаются вторым запросом и могут оказаться новее версии: такая сводка
+        // лишь немного опережает агрегат и при следующем комментарии всё равно будет заменена
+        Map<Long, Versioned> loaded = new HashMap<>();
+        for (ItemCommentStatsView itemStats : stats) {
+            ItemCommentSummary summary = itemStats.getCommentCount() == null
+                    ? ItemCommentSummary.EMPTY
+                    : new ItemCommentSummary(itemStats.getCommentCount(), itemStats.getLastCommentAt(),
+                    List.copyOf(latest.getOrDefault(itemStats.getItemId(), List.of())));
+            loaded.put(itemStats.getItemId(), new Versioned(itemStats.getVersion(), summary));
+        }
+        return loaded;
+    }
+
+    private record Versioned(long version, ItemCommentSummary summary) {
+    }
+}
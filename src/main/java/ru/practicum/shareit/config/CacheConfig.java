@@ -0,0 +1,68 @@
+package ru.practicum.shareit.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Кеши Spring (Caffeine, spring.cache.*) и кеш второго уровня Hibernate на JCache поверх Caffeine.
+ * Регионы второго уровня создаются здесь с ограничением размера и временем жизни записи; регион, для которого
+ * настройки нет, приводит к ошибке при старте (missing_cache_strategy=fail), а не к неограниченному кешу.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    // Регионы сущностей по умолчанию называются полным именем класса
+    private static final List<String> ENTITY_REGIONS = List.of(
+            User.class.getName(),
+            Item.class.getName(),
+            ItemRequest.class.getName());
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(
+            @Value("${shareit.l2-cache.maximum-size}") long maximumSize,
+            @Value("${shareit.l2-cache.expire-after-write}") long expireAfterWrite) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER,
+                secondLevelCacheManager(maximumSize, expireAfterWrite));
+    }
+
+    private static CacheManager secondLevelCacheManager(long maximumSize, long expireAfterWrite) {
+        // Менеджер закрывает Hibernate вместе с фабрикой сессий, поэтому у каждого контекста свой
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("shareit-l2-" + UUID.randomUUID()), CacheConfig.class.getClassLoader());
+
+        ENTITY_REGIONS.forEach(region ->
+                cacheManager.createCache(region, bounded(maximumSize, expireAfterWrite)));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                bounded(maximumSize, expireAfterWrite));
+        // Метки времени изменения таблиц не вытесняются: без них результаты запросов нельзя проверить на свежесть
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                new CaffeineConfiguration<>());
+        return cacheManager;
+    }
+
+    private static CaffeineConfiguration<Object, Object> bounded(long maximumSize, long expireAfterWrite) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maximumSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.MILLISECONDS.toNanos(expireAfterWrite)));
+        return configuration;
+    }
+}
@@ -0,0 +1,119 @@
+package ru.practicum.shareit.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.autoconfigure.sql.init.SqlDataSourceScriptDatabaseInitializer;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.util.PooledSequenceGenerator;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.util.Map;
+
+/**
+ * Выдача id блоками из последовательностей ({@link ru.practicum.shareit.util.PooledSequence}).
+ * После schema.sql последовательность, отстающая от максимального id таблицы, сдвигается вперёд:
+ * строки, вставленные раньше через IDENTITY, не попадут в выдаваемые блоки. Назад последовательность
+ * не двигается никогда, поэтому блоки, уже выданные работающим экземплярам, остаются их.
+ * Шаг последовательности при старте не меняется: он должен совпадать с {@code shareit.id.allocation-size},
+ * иначе приложение не запустится (смена размера блока - миграция при остановленных экземплярах).
+ */
+@Configuration
+@EnableConfigurationProperties(SqlInitializationProperties.class)
+public class IdGenerationConfig {
+
+    // Таблица → последовательность, из которой берутся её id
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "users", "users_seq",
+            "item_requests", "item_requests_seq",
+            "items", "items_seq",
+            "bookings", "bookings_seq",
+            "comments", "comments_seq",
+            "booking_outbox", "booking_outbox_seq");
+
+    // Ключ pg_advisory_xact_lock: экземпляры, стартующие одновременно, проверяют последовательности по очереди
+    private static final long ALIGN_LOCK_KEY = 0x5368617265497431L;
+
+    @Bean
+    public HibernatePropertiesCustomizer idAllocationCustomizer(
+            @Value("${shareit.id.allocation-size}") int allocationSize) {
+        return properties -> properties.put(PooledSequenceGenerator.ALLOCATION_SIZE, allocationSize);
+    }
+
+    @Bean
+    public SqlDataSourceScriptDatabaseInitializer dataSourceScriptDatabaseInitializer(
+            DataSource dataSource, SqlInitializationProperties properties,
+            @Value("${shareit.id.allocation-size}") int allocationSize) {
+        return new SqlDataSourceScriptDatabaseInitializer(dataSource, properties) {
+            @Override
+            public boolean initializeDatabase() {
+                boolean initialized = super.initializeDatabase();
+                if (initialized) {
+                    alignSequences(dataSource, allocationSize);
+                }
+                return initialized;
+            }
+        };
+    }
+
+    private static void alignSequences(DataSource dataSource, int allocationSize) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        boolean postgres = "PostgreSQL".equals(databaseName(dataSource));
+        new TransactionTemplate(new DataSourceTransactionManager(dataSource)).executeWithoutResult(status -> {
+            if (postgres) {
+                jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + ALIGN_LOCK_KEY + ")");
+            }
+            SEQUENCES.forEach((table, sequence) -> {
+                long increment = increment(jdbcTemplate, postgres, sequence);
+                if (increment != allocationSize) {
+                    throw new IllegalStateException(String.format("Шаг последовательности %s (%d) не равен "
+                            + "shareit.id.allocation-size (%d): измените его миграцией при остановленных экземплярах",
+                            sequence, increment, allocationSize));
+                }
+                // Значение v даёт блок id (v - шаг, v]: первый блок должен начинаться после максимального id
+                Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+                long target = maxId + increment;
+                if (nextValue(jdbcTemplate, postgres, sequence, increment) >= target) {
+                    return;
+                }
+                // H2 - встроенная БД одного процесса, параллельных выдач из другого экземпляра у неё нет
+                jdbcTemplate.execute(postgres
+                        ? "SELECT setval('" + sequence + "', " + target + ", false)"
+                        : "ALTER SEQUENCE " + sequence + " RESTART WITH " + target);
+            });
+        });
+    }
+
+    private static long increment(JdbcTemplate jdbcTemplate, boolean postgres, String sequence) {
+        return jdbcTemplate.queryForObject(postgres
+                ? "SELECT increment_by FROM pg_sequences WHERE schemaname = current_schema AND sequencename = ?"
+                : "SELECT INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES "
+                + "WHERE SEQUENCE_SCHEMA = CURRENT_SCHEMA AND SEQUENCE_NAME = ?",
+                Long.class, postgres ? sequence : sequence.toUpperCase());
+    }
+
+    // Значение, которое вернёт следующий nextval; последовательность при этом не сдвигается
+    private static long nextValue(JdbcTemplate jdbcTemplate, boolean postgres, String sequence, long increment) {
+        return jdbcTemplate.queryForObject(postgres
+                ? "SELECT CASE WHEN is_called THEN last_value + " + increment + " ELSE last_value END FROM " + sequence
+                : "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES "
+                + "WHERE SEQUENCE_SCHEMA = CURRENT_SCHEMA AND SEQUENCE_NAME = '" + sequence.toUpperCase() + "'",
+                Long.class);
+    }
+
+    private static String databaseName(DataSource dataSource) {
+        try {
+            return JdbcUtils.commonDatabaseName(
+                    JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName));
+        } catch (Exception e) {
+            throw new IllegalStateException("Не удалось определить тип БД", e);
+        }
+    }
+}
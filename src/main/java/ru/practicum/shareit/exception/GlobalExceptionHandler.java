@@ -1,7 +1,10 @@
 package ru.practicum.shareit.exception;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.ConstraintViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -24,7 +27,8 @@ public class GlobalExceptionHandler {
             code,
             (validation == null || validation.isEmpty()) ? null : validation
         );
-        return ResponseEntity.status(status).body(body);
+        // Тип задаётся явно: иначе ошибку обработчика, который отдаёт только NDJSON, нечем записать
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     @ExceptionHandler(UserNotFoundException.class)
@@ -37,6 +41,12 @@ public class GlobalExceptionHandler {
         return build(HttpStatus.NOT_FOUND, ex.getMessage(), "ITEM_NOT_FOUND", req, null);
     }
 
+    @ExceptionHandler(ItemRequestNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleItemRequestNotFound(ItemRequestNotFoundException ex,
+                                                                   HttpServletRequest req) {
+        return build(HttpStatus.NOT_FOUND, ex.getMessage(), "REQUEST_NOT_FOUND", req, null);
+    }
+
     @ExceptionHandler(BookingNotFoundException.class)
     public ResponseEntity<ErrorResponse> handleBookingNotFound(BookingNotFoundException ex, HttpServletRequest req) {
         return build(HttpStatus.NOT_FOUND, ex.getMessage(), "BOOKING_NOT_FOUND", req, null);
@@ -52,6 +62,27 @@ public class GlobalExceptionHandler {
         return build(HttpStatus.CONFLICT, ex.getMessage(), "CONFLICT", req, null);
     }
 
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleServiceUnavailable(ServiceUnavailableException ex,
+                                                                  HttpServletRequest req) {
+        return build(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage(), "SERVICE_UNAVAILABLE", req, null);
+    }
+
+    // Строку успели изменить в параллельной транзакции (не совпала @Version)
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLock(OptimisticLockingFailureException ex,
+                                                              HttpServletRequest req) {
+        return build(HttpStatus.CONFLICT, "Данные изменены параллельным запросом, повторите попытку",
+                "CONCURRENT_MODIFICATION", req, null);
+    }
+
+    // Нарушение ограничений на параметры запроса (@Positive, @PositiveOrZero и т.п.)
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<ErrorResponse> handleConstraintViolation(ConstraintViolationException ex,
+                                                                   HttpServletRequest req) {
+        return build(HttpStatus.BAD_REQUEST, ex.getMessage(), "BAD_REQUEST", req, null);
+    }
+
     // Общая обработка возможных IllegalArgumentException или других ошибок
     @ExceptionHandler({IllegalArgumentException.class, IllegalStateException.class})
     public ResponseEntity<ErrorResponse> handleBadRequest(RuntimeException ex, HttpServletRequest req) {
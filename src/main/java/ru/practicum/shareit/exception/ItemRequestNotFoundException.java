@@ -0,0 +1,7 @@
+package ru.practicum.shareit.exception;
+
+public class ItemRequestNotFoundException extends RuntimeException {
+    public ItemRequestNotFoundException(Long requestId) {
+        super("Запрос с id = " + requestId + " не найден");
+    }
+}
@@ -0,0 +1,8 @@
+package ru.practicum.shareit.exception;
+
+// Запрос корректен, но сейчас не может быть принят (например, переполнена очередь); клиенту стоит повторить позже
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -1,22 +1,43 @@
 package ru.practicum.shareit.item;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.comment.dto.CreateCommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.TimeSlotDto;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.metrics.ConditionalRequests;
+import ru.practicum.shareit.util.NdjsonWriter;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
 
+@Validated
 @RestController
 @RequestMapping("/items")
 @RequiredArgsConstructor
 public class ItemController {
 
     private final ItemService itemService;
+    private final ConditionalRequests conditionalRequests;
+    private final ObjectMapper objectMapper;
+
+    @Value("${shareit.comments.async.enabled}")
+    private boolean asyncComments;
 
     // Добавление новой вещи
     @PostMapping
@@ -38,32 +59,81 @@ public class ItemController {
         return itemService.updateItem(userId, itemId, itemDto);
     }
 
-    // Получение вещи по ID
+    // Получение вещи по ID; при совпадении If-None-Match с ETag - 304 без загрузки вещи
     @GetMapping("/{itemId}")
     public ItemDto getItemById(
         @RequestHeader("X-Sharer-User-Id") Long userId,
-        @PathVariable Long itemId
+        @PathVariable Long itemId,
+        WebRequest request
     ) {
+        if (conditionalRequests.notModified(request, "item", itemService.getItemETag(userId, itemId))) {
+            return null;
+        }
         return itemService.getItemById(userId, itemId);
     }
 
     // Список всех вещей владельца
     @GetMapping
-    public List<ItemDto> getAllItemsByUser(@RequestHeader("X-Sharer-User-Id") Long userId) {
-        return itemService.getAllItemsByUser(userId);
+    public List<ItemDto> getAllItemsByUser(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                           @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+                                           @RequestParam(defaultValue = "10") @Positive int size) {
+        return itemService.getAllItemsByUser(userId, from, size);
+    }
+
+    // Все вещи владельца потоком NDJSON, без постраничности
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamAllItemsByUser(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                     HttpServletResponse response) throws IOException {
+        NdjsonWriter writer = new NdjsonWriter(objectMapper, response);
+        itemService.forEachItemByUser(userId, writer::write);
+        writer.finish();
     }
 
     // Поиск вещей по тексту
     @GetMapping("/search")
-    public List<ItemDto> searchItems(@RequestParam String text) {
-        return itemService.searchItems(text);
+    public List<ItemDto> searchItems(@RequestParam String text,
+                                     @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+                                     @RequestParam(defaultValue = "10") @Positive int size) {
+        return itemService.searchItems(text, from, size);
+    }
+
+    // Все результаты поиска потоком NDJSON
+    @GetMapping(value = "/search", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamSearchItems(@RequestParam String text, HttpServletResponse response) throws IOException {
+        NdjsonWriter writer = new NdjsonWriter(objectMapper, response);
+        itemService.forEachFoundItem(text, writer::write);
+        writer.finish();
+    }
+
+    // Свободные интервалы вещи в окне [from, to)
+    @GetMapping("/{itemId}/availability")
+    public List<TimeSlotDto> getFreeSlots(
+        @RequestHeader("X-Sharer-User-Id") Long userId,
+        @PathVariable Long itemId,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        return itemService.getFreeSlots(userId, itemId, from, to);
+    }
+
+    // Комментарии вещи постранично, новые первыми
+    @GetMapping("/{itemId}/comments")
+    public List<CommentDto> getComments(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                        @PathVariable Long itemId,
+                                        @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+                                        @RequestParam(defaultValue = "10") @Positive int size) {
+        return itemService.getComments(userId, itemId, from, size);
     }
 
-    // Оставить комментарий
+    // Оставить комментарий. В асинхронном режиме - 202 сразу после проверки права и записи в журнал,
+    // комментарий появится в вещи после записи очередной пачки
     @PostMapping("/{itemId}/comment")
-    public CommentDto addComment(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                 @PathVariable Long itemId,
-                                 @RequestBody CreateCommentDto body) {
-        return itemService.addComment(userId, itemId, body);
+    public ResponseEntity<CommentDto> addComment(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                 @PathVariable Long itemId,
+                                                 @RequestBody @Valid CreateCommentDto body) {
+        if (asyncComments) {
+            return ResponseEntity.accepted().body(itemService.acceptComment(userId, itemId, body));
+        }
+        return ResponseEntity.ok(itemService.addComment(userId, itemId, body));
     }
-}
\ No newline at end of file
+}
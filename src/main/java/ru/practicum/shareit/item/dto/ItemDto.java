@@ -1,5 +1,6 @@
 package ru.practicum.shareit.item.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
@@ -23,11 +24,23 @@ public class ItemDto {
     @NotNull(message = "Поле 'available' обязательно для заполнения")
     private Boolean available;
 
+    // id запроса, в ответ на который добавлена вещь
+    private Long requestId;
+
     private ItemRequestDto request;
 
+    // Последние комментарии (новые первыми); все - постранично через /items/{itemId}/comments
     private List<CommentDto> comments;
 
+    private Long commentCount;
+
+    private LocalDateTime lastCommentAt;
+
     private LocalDateTime lastBooking;
 
     private LocalDateTime nextBooking;
+
+    // Версия строки вещи, с которой сверяется кешированная сводка комментариев; в JSON не выводится
+    @JsonIgnore
+    private Long version;
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.item.dto;
+
+// Вещь, добавленная в ответ на запрос, вместе с id этого запроса
+public interface ItemOfferView {
+
+    Long getId();
+
+    String getName();
+
+    Long getOwnerId();
+
+    Long getRequestId();
+}
@@ -0,0 +1,12 @@
+package ru.practicum.shareit.item.dto;
+
+// Версии строк, из которых строится ответ GET /items/{itemId} (без загрузки самой вещи)
+public interface ItemVersionView {
+
+    Long getOwnerId();
+
+    Long getVersion();
+
+    // Версия автора запроса, на который откликается вещь (null, если вещь без запроса)
+    Long getRequestorVersion();
+}
@@ -0,0 +1,26 @@
+package ru.practicum.shareit.item.dto;
+
+import ru.practicum.shareit.request.dto.ItemRequestView;
+
+import java.time.LocalDateTime;
+
+// Вещь с запросом, на который она откликается (request = null, если запроса нет), для списков.
+// version - версия строки вещи (null, если вещь выбрана в составе брони)
+public record ItemView(Long id, String name, String description, Boolean available, Long version,
+                       ItemRequestView request) {
+
+    public ItemView(Long id, String name, String description, Boolean available, Long version,
+                    Long requestId, String requestDescription, LocalDateTime requestCreated,
+                    Long requestorId, String requestorName, String requestorEmail) {
+        this(id, name, description, available, version, requestId == null ? null
+                : new ItemRequestView(requestId, requestDescription, requestCreated,
+                        requestorId, requestorName, requestorEmail));
+    }
+
+    public ItemView(Long id, String name, String description, Boolean available,
+                    Long requestId, String requestDescription, LocalDateTime requestCreated,
+                    Long requestorId, String requestorName, String requestorEmail) {
+        this(id, name, description, available, null, requestId, requestDescription, requestCreated,
+                requestorId, requestorName, requestorEmail);
+    }
+}
@@ -1,6 +1,7 @@
 package ru.practicum.shareit.item.mapper;
 
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemView;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.mapper.ItemRequestMapper;
 
@@ -14,14 +15,34 @@ public class ItemMapper {
         dto.setName(item.getName());
         dto.setDescription(item.getDescription());
         dto.setAvailable(item.getAvailable());
+        dto.setVersion(item.getVersion());
 
         if (item.getRequest() != null) {
+            dto.setRequestId(item.getRequest().getId());
             dto.setRequest(ItemRequestMapper.toDto(item.getRequest()));
         }
 
         return dto;
     }
 
+    public static ItemDto toDto(ItemView item) {
+        if (item == null) return null;
+
+        ItemDto dto = new ItemDto();
+        dto.setId(item.id());
+        dto.setName(item.name());
+        dto.setDescription(item.description());
+        dto.setAvailable(item.available());
+        dto.setVersion(item.version());
+
+        if (item.request() != null) {
+            dto.setRequestId(item.request().id());
+            dto.setRequest(ItemRequestMapper.toDto(item.request()));
+        }
+
+        return dto;
+    }
+
     public static Item toEntity(ItemDto dto) {
         if (dto == null) return null;
 
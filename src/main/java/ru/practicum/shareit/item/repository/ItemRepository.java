@@ -1,10 +1,72 @@
 package ru.practicum.shareit.item.repository;
 
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.item.dto.ItemOfferView;
+import ru.practicum.shareit.item.dto.ItemVersionView;
+import ru.practicum.shareit.item.dto.ItemView;
 import ru.practicum.shareit.item.model.Item;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface ItemRepository extends JpaRepository<Item, Long> {
 
+    // Строки списков вещей собираются конструктором прямо из выборки, без управляемых сущностей
+    String ITEM_VIEW = "select new ru.practicum.shareit.item.dto.ItemView(i.id, i.name, i.description, i.available, i.version, " +
+            "r.id, r.description, r.created, u.id, u.name, u.email) " +
+            "from Item i left join i.request r left join r.requestor u ";
+
+    // Доступные вещи с подстрокой в названии или описании (без учёта регистра).
+    // Спецсимволы LIKE в text должны быть экранированы символом '\'
+    String SEARCH_CONDITION = "where i.available = true " +
+            "and (upper(i.name) like upper(concat('%', :text, '%')) escape '\\' " +
+            "or upper(i.description) like upper(concat('%', :text, '%')) escape '\\') ";
+
+    // Блокировка строки вещи до конца транзакции: операции над бронями одной вещи выполняются по очереди
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from Item i where i.id = :id")
+    Optional<Item> findByIdForUpdate(@Param("id") Long id);
+
+    // То же с увеличением версии вещи: её представление меняется, хотя сама строка - нет (новый комментарий)
+    @Lock(LockModeType.PESSIMISTIC_FORCE_INCREMENT)
+    @Query("select i from Item i where i.id = :id")
+    Optional<Item> findByIdForNewVersion(@Param("id") Long id);
+
+    // Владелец и версии для условного GET, без загрузки вещи и её связей
+    @Query("select i.owner.id as ownerId, i.version as version, ru.version as requestorVersion " +
+            "from Item i left join i.request r left join r.requestor ru where i.id = :id")
+    Optional<ItemVersionView> findVersionById(@Param("id") Long id);
+
+    // Вещи по списку id вместе с запросами и их авторами (всё, что нужно ItemMapper.toDto)
+    @Query("select i from Item i left join fetch i.request r left join fetch r.requestor where i.id in :ids")
+    List<Item> findAllWithRequestByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Вещи, предложенные в ответ на любой из запросов, одним запросом
+    @Query("select i.id as id, i.name as name, i.owner.id as ownerId, i.request.id as requestId " +
+            "from Item i where i.request.id in :requestIds order by i.id")
+    List<ItemOfferView> findOffersByRequestIds(@Param("requestIds") Collection<Long> requestIds);
+
+    // Вещи владельца постранично (использует индекс idx_items_owner)
+    @Query(ITEM_VIEW + "where i.owner.id = :ownerId")
+    List<ItemView> findViewsByOwnerId(@Param("ownerId") Long ownerId, Pageable pageable);
+
+    // Порция вещей владельца после afterId - для выгрузки всех вещей по ключу id
+    @Query(ITEM_VIEW + "where i.owner.id = :ownerId and i.id > :afterId order by i.id")
+    List<ItemView> findViewsByOwnerIdAfter(@Param("ownerId") Long ownerId, @Param("afterId") Long afterId, Limit limit);
+
+    @Query(ITEM_VIEW + SEARCH_CONDITION)
+    List<ItemView> searchAvailable(@Param("text") String text, Pageable pageable);
+
+    // Порция найденных вещей после afterId - для выгрузки всех результатов поиска
+    @Query(ITEM_VIEW + SEARCH_CONDITION + "and i.id > :afterId order by i.id")
+    List<ItemView> searchAvailableAfter(@Param("text") String text, @Param("afterId") Long afterId, Limit limit);
 }
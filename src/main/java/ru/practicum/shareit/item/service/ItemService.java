@@ -3,8 +3,12 @@ package ru.practicum.shareit.item.service;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.comment.dto.CreateCommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.TimeSlotDto;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface ItemService {
 
@@ -14,9 +18,24 @@ public interface ItemService {
 
     ItemDto getItemById(Long userId, Long itemId);
 
-    List<ItemDto> getAllItemsByUser(Long ownerId);
+    // ETag ответа getItemById; пусто, если ответ нельзя проверить по версиям
+    Optional<String> getItemETag(Long userId, Long itemId);
 
-    List<ItemDto> searchItems(String text);
+    List<ItemDto> getAllItemsByUser(Long ownerId, int from, int size);
+
+    List<ItemDto> searchItems(String text, int from, int size);
+
+    // Все вещи владельца / все результаты поиска без постраничности, порциями по мере записи ответа
+    void forEachItemByUser(Long ownerId, Consumer<ItemDto> action);
+
+    void forEachFoundItem(String text, Consumer<ItemDto> action);
+
+    List<TimeSlotDto> getFreeSlots(Long userId, Long itemId, LocalDateTime from, LocalDateTime to);
+
+    List<CommentDto> getComments(Long userId, Long itemId, int from, int size);
 
     CommentDto addComment(Long userId, Long itemId, CreateCommentDto createCommentDto);
+
+    // Проверка права и постановка в очередь асинхронной записи (shareit.comments.async.enabled); id ещё нет
+    CommentDto acceptComment(Long userId, Long itemId, CreateCommentDto createCommentDto);
 }
@@ -1,29 +1,59 @@
 package ru.practicum.shareit.item.service;
 
-import jakarta.transaction.Transactional;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.validation.ValidationException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingPeriod;
+import ru.practicum.shareit.booking.dto.ItemBookingDate;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.comment.dto.CreateCommentDto;
+import ru.practicum.shareit.comment.dto.ItemCommentSummary;
 import ru.practicum.shareit.comment.mapper.CommentMapper;
 import ru.practicum.shareit.comment.model.Comment;
+import ru.practicum.shareit.comment.model.ItemCommentStats;
 import ru.practicum.shareit.comment.repository.CommentRepository;
+import ru.practicum.shareit.comment.repository.ItemCommentStatsRepository;
+import ru.practicum.shareit.comment.service.AsyncCommentWriter;
+import ru.practicum.shareit.comment.service.ItemCommentSummaries;
 import ru.practicum.shareit.exception.ItemNotFoundException;
+import ru.practicum.shareit.exception.ItemRequestNotFoundException;
+import ru.practicum.shareit.metrics.ConditionalRequests;
+import ru.practicum.shareit.metrics.ItemSearchMetrics;
 import ru.practicum.shareit.exception.UserNotFoundException;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemVersionView;
+import ru.practicum.shareit.item.dto.ItemView;
+import ru.practicum.shareit.item.dto.TimeSlotDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserExistenceCache;
+import ru.practicum.shareit.util.OffsetPageRequest;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -35,22 +65,41 @@ public class ItemServiceImpl implements ItemService {
     private final UserRepository userRepository;
     private final CommentRepository commentRepository;
     private final BookingRepository bookingRepository;
+    private final UserExistenceCache userExistenceCache;
+    private final ItemCommentStatsRepository commentStatsRepository;
+    private final ItemCommentSummaries commentSummaries;
+    private final ItemRequestRepository itemRequestRepository;
+    private final ObjectProvider<AsyncCommentWriter> asyncCommentWriter;
+    private final ItemSearchMetrics searchMetrics;
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Value("${shareit.export.chunk-size}")
+    private int exportChunkSize;
 
     @Override
+    @Transactional
     public ItemDto addItem(Long ownerId, ItemDto itemDto) {
-        User user = userRepository.findById(ownerId)
-                .orElseThrow(() -> new UserNotFoundException(ownerId));
+        if (!userExistenceCache.exists(ownerId)) {
+            throw new UserNotFoundException(ownerId);
+        }
 
         Item item = ItemMapper.toEntity(itemDto);
-        item.setOwner(user);
+        item.setId(null);
+        item.setOwner(userRepository.getReferenceById(ownerId));
+        if (itemDto.getRequestId() != null) {
+            item.setRequest(itemRequestRepository.findWithRequestorById(itemDto.getRequestId())
+                    .orElseThrow(() -> new ItemRequestNotFoundException(itemDto.getRequestId())));
+        }
         Item savedItem = itemRepository.save(item);
         return ItemMapper.toDto(savedItem);
     }
 
     @Override
+    @Transactional
     public ItemDto updateItem(Long ownerId, Long itemId, ItemDto itemDto) {
-        userRepository.findById(ownerId)
-                .orElseThrow(() -> new UserNotFoundException(ownerId));
+        if (!userExistenceCache.exists(ownerId)) {
+            throw new UserNotFoundException(ownerId);
+        }
 
         Item item = itemRepository.findById(itemId)
                 .orElseThrow(() -> new ItemNotFoundException(itemId));
@@ -66,47 +115,196 @@ public class ItemServiceImpl implements ItemService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ItemDto getItemById(Long userId, Long itemId) {
-        userRepository.findById(userId)
-                .orElseThrow(() -> new UserNotFoundException(userId));
+        if (!userExistenceCache.exists(userId)) {
+            throw new UserNotFoundException(userId);
+        }
 
         Item item = itemRepository.findById(itemId)
                 .orElseThrow(() -> new ItemNotFoundException(itemId));
 
-        ItemDto itemDto = ItemMapper.toDto(item);
+        // Вещь может прийти из кеша второго уровня с устаревшей версией, а по версии сверяется кешированная
+        // сводка комментариев: версию берём из БД, как и для ETag
+        ItemDto dto = ItemMapper.toDto(item);
+        dto.setVersion(itemRepository.findVersionById(itemId).map(ItemVersionView::getVersion).orElse(null));
 
-        List<Comment> comments = commentRepository.findByItemId(item.getId());
-        itemDto.setComments(
-                comments.stream().map(CommentMapper::toDto).collect(Collectors.toList())
-        );
+        // Даты бронирований показываем только владельцу
+        boolean withBookings = Objects.equals(item.getOwner().getId(), userId);
+        return withDetails(List.of(dto), withBookings).get(0);
+    }
 
-        return itemDto;
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<String> getItemETag(Long userId, Long itemId) {
+        if (!userExistenceCache.exists(userId)) {
+            return Optional.empty();
+        }
+        // Владельцу показываются последняя и следующая брони, а они сменяются со временем без записи в БД,
+        // поэтому его ответ по версиям не проверяется. Тег слабый: имена авторов комментариев берутся из users
+        // и в него не входят (как и в кешированную сводку комментариев), переименование автора его не меняет
+        return itemRepository.findVersionById(itemId)
+                .filter(version -> !Objects.equals(version.getOwnerId(), userId))
+                .map(version -> ConditionalRequests.weakEtag(version.getVersion(), version.getRequestorVersion()));
     }
 
     @Override
-    public List<ItemDto> getAllItemsByUser(Long ownerId) {
+    @Transactional(readOnly = true)
+    public List<ItemDto> getAllItemsByUser(Long ownerId, int from, int size) {
         // проверить что пользователь существует
-        userRepository.findById(ownerId)
-        .orElseThrow(() -> new UserNotFoundException(ownerId));
+        if (!userExistenceCache.exists(ownerId)) {
+            throw new UserNotFoundException(ownerId);
+        }
 
-        return itemRepository.findAll().stream()
-                .filter(item -> item.getOwner() != null && ownerId.equals(item.getOwner().getId()))
+        Pageable page = OffsetPageRequest.of(from, size, Sort.by("id"));
+        List<ItemDto> items = itemRepository.findViewsByOwnerId(ownerId, page).stream()
                 .map(ItemMapper::toDto)
                 .collect(Collectors.toList());
+        return withDetails(items, true);
+    }
+
+    @Override
+    public void forEachItemByUser(Long ownerId, Consumer<ItemDto> action) {
+        if (!userExistenceCache.exists(ownerId)) {
+            throw new UserNotFoundException(ownerId);
+        }
+
+        exportItems(afterId -> itemRepository.findViewsByOwnerIdAfter(ownerId, afterId, Limit.of(exportChunkSize)),
+                true, action);
+    }
+
+    @Override
+    public void forEachFoundItem(String text, Consumer<ItemDto> action) {
+        if (text == null || text.isBlank()) {
+            return;
+        }
+        String pattern = escapeLike(text);
+        searchMetrics.recordExport(() -> {
+            long[] found = {0};
+            exportItems(afterId -> itemRepository.searchAvailableAfter(pattern, afterId, Limit.of(exportChunkSize)),
+                    false, item -> {
+                        found[0]++;
+                        action.accept(item);
+                    });
+            return found[0];
+        });
+    }
+
+    // Выгрузка порциями по id: сводки и даты броней подгружаются на порцию, в памяти не больше exportChunkSize
+    // вещей, соединение с БД занято только на время чтения порции
+    private void exportItems(LongFunction<List<ItemView>> chunkAfter, boolean withBookings, Consumer<ItemDto> action) {
+        List<ItemView> rows = chunkAfter.apply(0);
+        while (!rows.isEmpty()) {
+            withDetails(rows.stream().map(ItemMapper::toDto).collect(Collectors.toList()), withBookings)
+                    .forEach(action);
+            if (rows.size() < exportChunkSize) {
+                break;
+            }
+            rows = chunkAfter.apply(rows.get(rows.size() - 1).id());
+        }
+    }
+
+    // Заполняет сводку комментариев и (при withBookings) даты последнего/следующего подтверждённого бронирования
+    // для всей страницы вещей фиксированным числом запросов, независимо от её размера
+    private List<ItemDto> withDetails(List<ItemDto> items, boolean withBookings) {
+        if (items.isEmpty()) {
+            return items;
+        }
+        List<Long> itemIds = items.stream().map(ItemDto::getId).collect(Collectors.toList());
+        Map<Long, Long> versions = new HashMap<>();
+        items.forEach(dto -> versions.put(dto.getId(), dto.getVersion()));
+
+        Map<Long, ItemCommentSummary> comments = commentSummaries.getAll(versions);
+
+        Map<Long, LocalDateTime> lastBookings = Map.of();
+        Map<Long, LocalDateTime> nextBookings = Map.of();
+        if (withBookings) {
+            LocalDateTime now = LocalDateTime.now();
+            lastBookings = toDateMap(bookingRepository.findLastBookingDates(itemIds, BookingStatus.APPROVED, now));
+            nextBookings = toDateMap(bookingRepository.findNextBookingDates(itemIds, BookingStatus.APPROVED, now));
+        }
+
+        for (ItemDto dto : items) {
+            ItemCommentSummary summary = comments.getOrDefault(dto.getId(), ItemCommentSummary.EMPTY);
+            dto.setComments(summary.getLatest());
+            dto.setCommentCount(summary.getCount());
+            dto.setLastCommentAt(summary.getLastCommentAt());
+            dto.setLastBooking(lastBookings.get(dto.getId()));
+            dto.setNextBooking(nextBookings.get(dto.getId()));
+        }
+        return items;
+    }
+
+    private static Map<Long, LocalDateTime> toDateMap(List<ItemBookingDate> dates) {
+        return dates.stream().collect(Collectors.toMap(ItemBookingDate::getItemId, ItemBookingDate::getDate));
     }
 
     @Override
-    public List<ItemDto> searchItems(String text) {
+    @Transactional(readOnly = true)
+    public List<ItemDto> searchItems(String text, int from, int size) {
         if (text == null || text.isBlank()) {
             return List.of();
         }
-        String query = text.toLowerCase(Locale.ROOT);
-        return itemRepository.findAll().stream()
-                .filter(item -> Boolean.TRUE.equals(item.getAvailable()))
-                .filter(item -> item.getName().toLowerCase().contains(query)
-                        || item.getDescription().toLowerCase().contains(query))
+        Pageable page = OffsetPageRequest.of(from, size, Sort.by("id"));
+        // Сводка комментариев - как и в выгрузке поиска: у обоих вариантов /items/search одна форма строки
+        List<ItemDto> items = searchMetrics.recordPage(() -> itemRepository.searchAvailable(escapeLike(text), page))
+                .stream()
                 .map(ItemMapper::toDto)
                 .collect(Collectors.toList());
+        return withDetails(items, false);
+    }
+
+    // Экранирование спецсимволов LIKE, чтобы текст искался буквально
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TimeSlotDto> getFreeSlots(Long userId, Long itemId, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("Начало периода должно быть раньше его окончания");
+        }
+        if (!userExistenceCache.exists(userId)) {
+            throw new UserNotFoundException(userId);
+        }
+        if (!itemRepository.existsById(itemId)) {
+            throw new ItemNotFoundException(itemId);
+        }
+
+        // Подтверждённые брони отсортированы по началу: свободны промежутки между ними
+        List<TimeSlotDto> slots = new ArrayList<>();
+        LocalDateTime cursor = from;
+        for (BookingPeriod period : bookingRepository.findPeriods(itemId, BookingStatus.APPROVED, from, to)) {
+            if (period.getStart().isAfter(cursor)) {
+                slots.add(new TimeSlotDto(cursor, period.getStart()));
+            }
+            if (period.getEnd().isAfter(cursor)) {
+                cursor = period.getEnd();
+            }
+        }
+        if (cursor.isBefore(to)) {
+            slots.add(new TimeSlotDto(cursor, to));
+        }
+        return slots;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CommentDto> getComments(Long userId, Long itemId, int from, int size) {
+        if (!userExistenceCache.exists(userId)) {
+            throw new UserNotFoundException(userId);
+        }
+        if (!itemRepository.existsById(itemId)) {
+            throw new ItemNotFoundException(itemId);
+        }
+
+        Pageable page = OffsetPageRequest.of(from, size, Sort.by(Sort.Direction.DESC, "created", "id"));
+        return commentRepository.findPageByItemId(itemId, page).stream()
+                .map(CommentMapper::toDto)
+                .collect(Collectors.toList());
     }
 
     @Override
@@ -115,27 +313,63 @@ public class ItemServiceImpl implements ItemService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new UserNotFoundException(userId));
 
+        // Блокировка строки вещи: комментарии одной вещи учитываются в агрегате по очереди.
+        // Версия вещи увеличивается, так как меняются commentCount и comments в её представлении
+        Item item = itemRepository.findByIdForNewVersion(itemId)
+                .orElseThrow(() -> new ItemNotFoundException(itemId));
+        checkCanComment(userId, item);
+
+        Comment comment = CommentMapper.toEntity(body);
+        comment.setAuthor(user);
+        comment.setItem(item);
+
+        CommentDto saved = CommentMapper.toDto(commentRepository.save(comment));
+        if (commentStatsRepository.increment(itemId, saved.getCreated()) == 0) {
+            commentStatsRepository.save(new ItemCommentStats(itemId, 1, saved.getCreated()));
+        }
+
+        // Кешированная сводка удаляется после фиксации: загрузка до неё прочитала бы агрегат без комментария
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                commentSummaries.evict(itemId);
+                // Версия вещи увеличена блокировкой, которую кеш второго уровня не видит: в нём осталась прежняя,
+                // и правка вещи по ней завершилась бы конфликтом версий
+                entityManagerFactory.getCache().evict(Item.class, itemId);
+            }
+        });
+        return saved;
+    }
+
+    // Без транзакции: соединение не занято, пока комментарий дописывается в журнал
+    @Override
+    public CommentDto acceptComment(Long userId, Long itemId, CreateCommentDto body) {
+        AsyncCommentWriter writer = asyncCommentWriter.getIfAvailable();
+        if (writer == null) {
+            throw new IllegalStateException("Асинхронный приём комментариев выключен");
+        }
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new UserNotFoundException(userId));
         Item item = itemRepository.findById(itemId)
                 .orElseThrow(() -> new ItemNotFoundException(itemId));
+        checkCanComment(userId, item);
 
+        return writer.accept(itemId, userId, user.getName(), body.getText());
+    }
+
+    private void checkCanComment(Long userId, Item item) {
         // Запрет для владельца вещи
         if (Objects.equals(item.getOwner().getId(), userId)) {
             throw new ValidationException("Владелец не может комментировать свою вещь");
         }
 
-        // Проверка: брал ли пользователь вещь как "booker" и аренда уже завершена
-        boolean hasBooking = bookingRepository.existsByItem_IdAndBooker_IdAndEndBefore(
-                itemId, userId, LocalDateTime.now()
+        // Проверка: брал ли пользователь вещь как "booker" (подтверждённая бронь) и аренда уже завершена
+        boolean hasBooking = bookingRepository.existsByItem_IdAndBooker_IdAndStatusAndEndBefore(
+                item.getId(), userId, BookingStatus.APPROVED, LocalDateTime.now()
         );
 
         if (!hasBooking) {
             throw new ValidationException("Пользователь не может комментировать вещь, которую не арендовал");
         }
-
-        Comment comment = CommentMapper.toEntity(body);
-        comment.setAuthor(user);
-        comment.setItem(item);
-
-        return CommentMapper.toDto(commentRepository.save(comment));
     }
 }
@@ -0,0 +1,96 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Условные GET по ETag. Сравнивает If-None-Match с тегом, построенным по версиям строк, и ставит ETag в ответ.
+ * Тело и тег зависят от X-Sharer-User-Id, поэтому ответ помечается {@code Vary: X-Sharer-User-Id}:
+ * общий кеш не отдаст представление, построенное для одного пользователя, другому.
+ * Считает ответы по ресурсам в {@code shareit.http.conditional} (result = not_modified | full)
+ * и публикует долю 304 среди условных запросов в {@code shareit.http.conditional.not_modified.ratio}.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConditionalRequests {
+
+    public static final String METRIC_NAME = "shareit.http.conditional";
+
+    public static final String USER_HEADER = "X-Sharer-User-Id";
+
+    private final MeterRegistry registry;
+    private final Map<String, Outcomes> outcomes = new ConcurrentHashMap<>();
+
+    // Тег вида "3.1.-": версии через точку, отсутствующая версия (нет связанной строки) - дефис
+    public static String etag(Long... versions) {
+        StringBuilder tag = new StringBuilder();
+        for (Long version : versions) {
+            if (!tag.isEmpty()) {
+                tag.append('.');
+            }
+            tag.append(version != null ? version.toString() : "-");
+        }
+        return tag.toString();
+    }
+
+    // Слабый тег (W/"..."): версии покрывают не всё, что выводится в теле, а лишь его смысловое содержимое
+    public static String weakEtag(Long... versions) {
+        return "W/\"" + etag(versions) + "\"";
+    }
+
+    // true - клиент уже имеет актуальное представление, контроллер возвращает null и отдаётся 304.
+    // Пустой etag значит, что условный ответ невозможен (нет строки, нет доступа) и ответ строится как обычно.
+    // Тег читается до загрузки тела: при гонке с записью он окажется старше тела и приведёт лишь к лишней загрузке
+    public boolean notModified(WebRequest request, String resource, Optional<String> etag) {
+        // И для 304, и для полного ответа, в том числе без тега
+        if (request instanceof ServletWebRequest servletRequest && servletRequest.getResponse() != null) {
+            servletRequest.getResponse().addHeader(HttpHeaders.VARY, USER_HEADER);
+        }
+        if (etag.isEmpty()) {
+            return false;
+        }
+        boolean notModified = request.checkNotModified(etag.get());
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            Outcomes counters = outcomes.computeIfAbsent(resource, this::register);
+            (notModified ? counters.notModified : counters.full).increment();
+        }
+        return notModified;
+    }
+
+    private Outcomes register(String resource) {
+        Counter notModified = Counter.builder(METRIC_NAME)
+                .description("Conditional GET requests by outcome")
+                .tag("resource", resource)
+                .tag("result", "not_modified")
+                .register(registry);
+        Counter full = Counter.builder(METRIC_NAME)
+                .description("Conditional GET requests by outcome")
+                .tag("resource", resource)
+                .tag("result", "full")
+                .register(registry);
+        Outcomes counters = new Outcomes(notModified, full);
+        Gauge.builder(METRIC_NAME + ".not_modified.ratio", counters, Outcomes::notModifiedRatio)
+                .description("Share of conditional GET requests answered with 304")
+                .tag("resource", resource)
+                .register(registry);
+        return counters;
+    }
+
+    private record Outcomes(Counter notModified, Counter full) {
+
+        double notModifiedRatio() {
+            double total = notModified.count() + full.count();
+            return total == 0 ? 0 : notModified.count() / total;
+        }
+    }
+}
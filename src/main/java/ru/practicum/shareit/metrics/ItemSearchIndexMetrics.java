@@ -0,0 +1,46 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Размер триграммных индексов поиска (schema-postgresql.sql) в байтах - {@code shareit.items.search.index.size}.
+ * Читается по расписанию, а не при каждом опросе метрик; в H2 этих индексов нет, и метрика не публикуется.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "spring.sql.init.platform", havingValue = "postgresql")
+public class ItemSearchIndexMetrics {
+
+    private static final String SIZE_QUERY = "SELECT COALESCE(SUM(pg_relation_size(c.oid)), 0) FROM pg_class c " +
+            "WHERE c.relname IN ('idx_items_name_trgm', 'idx_items_description_trgm')";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AtomicLong size = new AtomicLong();
+
+    public ItemSearchIndexMetrics(JdbcTemplate jdbcTemplate, MeterRegistry registry) {
+        this.jdbcTemplate = jdbcTemplate;
+        Gauge.builder(ItemSearchMetrics.METRIC_NAME + ".index.size", size, AtomicLong::get)
+                .description("Size of the item search trigram indexes")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void refresh() {
+        try {
+            Long bytes = jdbcTemplate.queryForObject(SIZE_QUERY, Long.class);
+            size.set(bytes != null ? bytes : 0);
+        } catch (DataAccessException e) {
+            log.warn("Не удалось прочитать размер индексов поиска", e);
+        }
+    }
+}
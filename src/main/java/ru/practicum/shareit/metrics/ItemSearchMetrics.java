@@ -0,0 +1,61 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Поиск вещей: время запроса в {@code shareit.items.search} (mode = page | export) и число поисков,
+ * нашедших хотя бы одну вещь и не нашедших ничего, в {@code shareit.items.search.results} (result = hit | empty).
+ */
+@Component
+public class ItemSearchMetrics {
+
+    public static final String METRIC_NAME = "shareit.items.search";
+
+    private final Timer page;
+    private final Timer export;
+    private final Counter hits;
+    private final Counter empty;
+
+    public ItemSearchMetrics(MeterRegistry registry) {
+        this.page = timer(registry, "page");
+        this.export = timer(registry, "export");
+        this.hits = result(registry, "hit");
+        this.empty = result(registry, "empty");
+    }
+
+    public <T> List<T> recordPage(Supplier<List<T>> search) {
+        List<T> found = page.record(search);
+        count(found.size());
+        return found;
+    }
+
+    // Выгрузка измеряется целиком, вместе с записью ответа; export возвращает число выгруженных вещей
+    public void recordExport(LongSupplier export) {
+        count(this.export.record(export::getAsLong));
+    }
+
+    private void count(long found) {
+        (found > 0 ? hits : empty).increment();
+    }
+
+    private static Timer timer(MeterRegistry registry, String mode) {
+        return Timer.builder(METRIC_NAME)
+                .description("Item search queries")
+                .tag("mode", mode)
+                .register(registry);
+    }
+
+    private static Counter result(MeterRegistry registry, String result) {
+        return Counter.builder(METRIC_NAME + ".results")
+                .description("Item searches by whether anything was found")
+                .tag("result", result)
+                .register(registry);
+    }
+}
@@ -0,0 +1,43 @@
+package ru.practicum.shareit.metrics;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Суммирует время выполнения SQL-запросов и пакетов Hibernate в текущем потоке.
+ * Создаётся Hibernate на каждую сессию; сумма сбрасывается и снимается так же, как у {@link StatementCountInspector}.
+ */
+public class JdbcTimeListener implements SessionEventListener {
+
+    private static final ThreadLocal<long[]> NANOS = ThreadLocal.withInitial(() -> new long[1]);
+
+    // Сессия используется одним потоком, поэтому начало текущего запроса хранится в поле
+    private long start;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        start = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        NANOS.get()[0] += System.nanoTime() - start;
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        start = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        NANOS.get()[0] += System.nanoTime() - start;
+    }
+
+    public static void reset() {
+        NANOS.get()[0] = 0;
+    }
+
+    public static long current() {
+        return NANOS.get()[0];
+    }
+}
@@ -0,0 +1,83 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Service;
+import org.springframework.util.function.SingletonSupplier;
+
+import java.util.function.Supplier;
+
+/**
+ * Оборачивает каждый вызов методов сервисов (@Service) и репозиториев Spring Data в наблюдение Micrometer:
+ * {@code shareit.service} и {@code shareit.repository} с тегами component (имя бина) и method.
+ * Из наблюдения получаются таймеры, а при подключённом трассировщике - ещё и спаны.
+ * К уже существующему прокси (транзакции, репозитории) добавляется первым советом, иначе создаётся новый прокси.
+ */
+public class MethodObservationPostProcessor implements BeanPostProcessor {
+
+    public static final String SERVICE_OBSERVATION = "shareit.service";
+    public static final String REPOSITORY_OBSERVATION = "shareit.repository";
+
+    private final Supplier<ObservationRegistry> registry;
+
+    public MethodObservationPostProcessor(ObjectProvider<ObservationRegistry> registry) {
+        // Реестр берётся при первом вызове: постпроцессор создаётся раньше остальных бинов
+        this.registry = SingletonSupplier.of(registry::getObject);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        String observation;
+        if (bean instanceof Repository<?, ?>) {
+            observation = REPOSITORY_OBSERVATION;
+        } else if (AnnotatedElementUtils.hasAnnotation(AopUtils.getTargetClass(bean), Service.class)) {
+            observation = SERVICE_OBSERVATION;
+        } else {
+            return bean;
+        }
+
+        MethodInterceptor interceptor = new ObservingInterceptor(observation, beanName);
+        if (bean instanceof Advised advised && !advised.isFrozen()) {
+            advised.addAdvice(0, interceptor);
+            return bean;
+        }
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        // Сервисы внедряются и по классу, поэтому прокси строится от класса, а не от интерфейсов
+        proxyFactory.setProxyTargetClass(!(bean instanceof Repository<?, ?>));
+        proxyFactory.addAdvice(interceptor);
+        return proxyFactory.getProxy(bean.getClass().getClassLoader());
+    }
+
+    private final class ObservingInterceptor implements MethodInterceptor {
+
+        private final String name;
+        private final String component;
+
+        private ObservingInterceptor(String name, String component) {
+            this.name = name;
+            this.component = component;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            if (invocation.getMethod().getDeclaringClass() == Object.class) {
+                return invocation.proceed();
+            }
+            String method = invocation.getMethod().getName();
+            return Observation.createNotStarted(name, registry.get())
+                    .contextualName(component + "#" + method)
+                    .lowCardinalityKeyValue("component", component)
+                    .lowCardinalityKeyValue("method", method)
+                    .observeChecked(invocation::proceed);
+        }
+    }
+}
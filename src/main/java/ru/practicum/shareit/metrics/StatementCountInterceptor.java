@@ -0,0 +1,51 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Публикует число SQL-запросов на один HTTP-запрос как метрику {@code shareit.http.db.statements}
+ * и их суммарное время как {@code shareit.http.db.time}, обе с тегами method и uri
+ * (шаблон маршрута, например /bookings/{bookingId}).
+ */
+@RequiredArgsConstructor
+public class StatementCountInterceptor implements HandlerInterceptor {
+
+    public static final String METRIC_NAME = "shareit.http.db.statements";
+    public static final String TIME_METRIC_NAME = "shareit.http.db.time";
+
+    private final MeterRegistry registry;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        StatementCountInspector.reset();
+        JdbcTimeListener.reset();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        Tags tags = Tags.of("method", request.getMethod(), "uri", pattern != null ? pattern.toString() : "UNKNOWN");
+        DistributionSummary.builder(METRIC_NAME)
+                .description("SQL statements executed per HTTP request")
+                .tags(tags)
+                .register(registry)
+                .record(StatementCountInspector.current());
+        Timer.builder(TIME_METRIC_NAME)
+                .description("Time spent executing SQL per HTTP request")
+                .tags(tags)
+                .register(registry)
+                .record(JdbcTimeListener.current(), TimeUnit.NANOSECONDS);
+    }
+}
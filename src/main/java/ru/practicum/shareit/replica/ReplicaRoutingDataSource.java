@@ -0,0 +1,181 @@
+package ru.practicum.shareit.replica;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Выдаёт соединения транзакций только для чтения (@Transactional(readOnly = true) и чтения Spring Data)
+ * с исправных реплик по кругу, а всех остальных - с основной БД.
+ * Пользователь из X-Sharer-User-Id, чья пишущая транзакция зафиксирована меньше readYourWritesWindow назад,
+ * читает с основной БД, пока реплики догоняют его запись. Реплика, не отдавшая соединение или не прошедшая
+ * проверку, исключается до следующей успешной проверки.
+ * Источник выбирается при получении физического соединения, поэтому его оборачивают в
+ * LazyConnectionDataSourceProxy: к первому SQL-запросу признак readOnly транзакции уже выставлен.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements DisposableBean {
+
+    public static final String METRIC_NAME = "shareit.datasource.connections";
+    public static final String HEALTHY_METRIC_NAME = "shareit.datasource.replicas.healthy";
+
+    private static final ThreadLocal<Long> CURRENT_USER = new ThreadLocal<>();
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Cache<Long, Boolean> recentWriters;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter primaryConnections;
+    private final Counter replicaConnections;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicas,
+                                    Duration readYourWritesWindow, MeterRegistry registry) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.recentWriters = Caffeine.newBuilder().expireAfterWrite(readYourWritesWindow).build();
+        this.primaryConnections = connectionCounter(registry, "primary");
+        this.replicaConnections = connectionCounter(registry, "replica");
+        Gauge.builder(HEALTHY_METRIC_NAME, this, ReplicaRoutingDataSource::healthyReplicas)
+                .description("Read replicas currently receiving read-only transactions")
+                .register(registry);
+    }
+
+    public static void setCurrentUser(Long userId) {
+        CURRENT_USER.set(userId);
+    }
+
+    public static void clearCurrentUser() {
+        CURRENT_USER.remove();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Long userId = CURRENT_USER.get();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (userId != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+                rememberWriteOnCommit(userId);
+            }
+            return fromPrimary();
+        }
+        if (userId != null && recentWriters.getIfPresent(userId) != null) {
+            return fromPrimary();
+        }
+
+        Replica replica = nextHealthy();
+        if (replica == null) {
+            return fromPrimary();
+        }
+        try {
+            Connection connection = replica.dataSource.getConnection();
+            replicaConnections.increment();
+            return connection;
+        } catch (SQLException e) {
+            eject(replica, e);
+            return fromPrimary();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Учётные данные задаются в настройках пулов");
+    }
+
+    // Исключённые реплики возвращаются после успешной проверки, исправные - исключаются при неудачной
+    @Scheduled(initialDelayString = "${shareit.replicas.health-check-interval}",
+            fixedDelayString = "${shareit.replicas.health-check-interval}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                if (!connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                    throw new SQLException("Соединение не прошло проверку");
+                }
+                if (!replica.healthy) {
+                    log.info("Реплика {} снова принимает чтение", replica.dataSource.getPoolName());
+                    replica.healthy = true;
+                }
+            } catch (SQLException e) {
+                eject(replica, e);
+            }
+        }
+    }
+
+    public int healthyReplicas() {
+        return (int) replicas.stream().filter(replica -> replica.healthy).count();
+    }
+
+    @Override
+    public void destroy() {
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    private Connection fromPrimary() throws SQLException {
+        Connection connection = primary.getConnection();
+        primaryConnections.increment();
+        return connection;
+    }
+
+    // Окно отсчитывается от фиксации: до неё запись на репликах не появится в любом случае
+    private void rememberWriteOnCommit(Long userId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentWriters.put(userId, Boolean.TRUE);
+            }
+        });
+    }
+
+    private Replica nextHealthy() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private void eject(Replica replica, SQLException cause) {
+        if (replica.healthy) {
+            log.warn("Реплика {} исключена из чтения до следующей успешной проверки",
+                    replica.dataSource.getPoolName(), cause);
+            replica.healthy = false;
+        }
+    }
+
+    private static Counter connectionCounter(MeterRegistry registry, String target) {
+        return Counter.builder(METRIC_NAME)
+                .description("Physical connections handed out by the replica routing data source")
+                .tag("target", target)
+                .register(registry);
+    }
+
+    private static final class Replica {
+
+        private final HikariDataSource dataSource;
+        private volatile boolean healthy = true;
+
+        private Replica(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+    }
+}
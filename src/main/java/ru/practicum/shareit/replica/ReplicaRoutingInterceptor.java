@@ -0,0 +1,32 @@
+package ru.practicum.shareit.replica;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Передаёт {@link ReplicaRoutingDataSource} пользователя запроса из X-Sharer-User-Id:
+ * по нему отсчитывается окно чтения собственных записей с основной БД.
+ */
+public class ReplicaRoutingInterceptor implements HandlerInterceptor {
+
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String userId = request.getHeader(USER_HEADER);
+        try {
+            ReplicaRoutingDataSource.setCurrentUser(userId != null ? Long.valueOf(userId) : null);
+        } catch (NumberFormatException e) {
+            // Некорректный заголовок отклонит сам обработчик
+            ReplicaRoutingDataSource.clearCurrentUser();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        ReplicaRoutingDataSource.clearCurrentUser();
+    }
+}
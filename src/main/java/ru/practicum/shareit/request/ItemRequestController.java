@@ -1,12 +1,60 @@
 package ru.practicum.shareit.request;
 
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.service.ItemRequestService;
 
-/**
- * TODO Sprint add-item-requests.
- */
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Списки запросов листаются курсором: afterCreated и afterId - поля created и id последнего
+// запроса предыдущей страницы
+@Validated
 @RestController
 @RequestMapping(path = "/requests")
+@RequiredArgsConstructor
 public class ItemRequestController {
+
+    private final ItemRequestService itemRequestService;
+
+    // Создание запроса вещи
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public ItemRequestDto createRequest(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                        @RequestBody @Valid ItemRequestDto requestDto) {
+        return itemRequestService.createRequest(userId, requestDto);
+    }
+
+    // Свои запросы вместе с предложенными вещами, новые первыми
+    @GetMapping
+    public List<ItemRequestDto> getOwnRequests(
+            @RequestHeader("X-Sharer-User-Id") Long userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterCreated,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "10") @Positive int size) {
+        return itemRequestService.getOwnRequests(userId, afterCreated, afterId, size);
+    }
+
+    // Запросы других пользователей, новые первыми
+    @GetMapping("/all")
+    public List<ItemRequestDto> getAllRequests(
+            @RequestHeader("X-Sharer-User-Id") Long userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterCreated,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "10") @Positive int size) {
+        return itemRequestService.getAllRequests(userId, afterCreated, afterId, size);
+    }
+
+    // Запрос по id вместе с предложенными вещами
+    @GetMapping("/{requestId}")
+    public ItemRequestDto getRequestById(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                         @PathVariable Long requestId) {
+        return itemRequestService.getRequestById(userId, requestId);
+    }
 }
@@ -1,20 +1,23 @@
 package ru.practicum.shareit.request.dto;
 
+import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
-/**
- * TODO Sprint add-item-requests.
- */
 @Data
 public class ItemRequestDto {
     private Long id;
 
+    @NotBlank(message = "Описание запроса не должно быть пустым")
     private String description;
 
     private UserDto requestor;
 
     private LocalDateTime created;
+
+    // Вещи, предложенные в ответ; заполняется в списках и при получении запроса по id
+    private List<OfferedItemDto> items;
 }
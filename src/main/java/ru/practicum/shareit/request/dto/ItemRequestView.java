@@ -0,0 +1,15 @@
+package ru.practicum.shareit.request.dto;
+
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.time.LocalDateTime;
+
+// Запрос с автором для списков, строится конструктором прямо в запросе, без управляемых сущностей
+public record ItemRequestView(Long id, String description, LocalDateTime created, UserDto requestor) {
+
+    // Плоская форма для select new: вложенные конструкторы в JPQL не поддерживаются
+    public ItemRequestView(Long id, String description, LocalDateTime created,
+                           Long requestorId, String requestorName, String requestorEmail) {
+        this(id, description, created, new UserDto(requestorId, requestorName, requestorEmail));
+    }
+}
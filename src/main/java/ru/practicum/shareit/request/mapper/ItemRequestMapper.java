@@ -1,7 +1,10 @@
 package ru.practicum.shareit.request.mapper;
 
+import ru.practicum.shareit.item.dto.ItemOfferView;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestView;
+import ru.practicum.shareit.request.dto.OfferedItemDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
 
 public class ItemRequestMapper {
@@ -17,6 +20,21 @@ public class ItemRequestMapper {
         return dto;
     }
 
+    public static ItemRequestDto toDto(ItemRequestView request) {
+        if (request == null) return null;
+
+        ItemRequestDto dto = new ItemRequestDto();
+        dto.setId(request.id());
+        dto.setDescription(request.description());
+        dto.setCreated(request.created());
+        dto.setRequestor(request.requestor());
+        return dto;
+    }
+
+    public static OfferedItemDto toOfferedItemDto(ItemOfferView offer) {
+        return new OfferedItemDto(offer.getId(), offer.getName(), offer.getOwnerId());
+    }
+
     public static ItemRequest toEntity(ItemRequestDto dto) {
         if (dto == null) return null;
         ItemRequest request = new ItemRequest();
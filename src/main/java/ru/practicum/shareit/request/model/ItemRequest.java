@@ -2,22 +2,26 @@ package ru.practicum.shareit.request.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.util.PooledSequence;
 
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "item_requests")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @Setter
 @NoArgsConstructor
-@AllArgsConstructor
 @ToString(exclude = "requestor")
 @EqualsAndHashCode(exclude = "requestor")
 public class ItemRequest {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledSequence("item_requests_seq")
     private Long id;
 
     @Column(nullable = false)
@@ -29,4 +33,14 @@ public class ItemRequest {
 
     @Column(nullable = false)
     private LocalDateTime created;
-}
\ No newline at end of file
+
+    @Version
+    private Long version;
+
+    public ItemRequest(Long id, String description, User requestor, LocalDateTime created) {
+        this.id = id;
+        this.description = description;
+        this.requestor = requestor;
+        this.created = created;
+    }
+}
@@ -1,18 +1,54 @@
 package ru.practicum.shareit.request.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.request.dto.ItemRequestView;
 import ru.practicum.shareit.request.model.ItemRequest;
-import ru.practicum.shareit.user.model.User;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
+// Списки запросов постранично по ключу (created, id), новые первыми: следующая страница
+// начинается после последнего запроса предыдущей и не зависит от того, сколько строк пропущено
 @Repository
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
 
-    // Получить все запросы, сделанные конкретным пользователем (requestor)
-    List<ItemRequest> findByRequestorOrderByCreatedDesc(User requestor);
+    // Страницы списков строятся конструктором из выборки, без управляемых сущностей
+    String REQUEST_VIEW = "select new ru.practicum.shareit.request.dto.ItemRequestView(" +
+            "r.id, r.description, r.created, u.id, u.name, u.email) from ItemRequest r join r.requestor u ";
 
-    // Получить все запросы, созданные другими пользователями (не текущим), отсортированные по дате
-    List<ItemRequest> findByRequestor_IdNotOrderByCreatedDesc(Long userId);
-}
\ No newline at end of file
+    @Query("select r from ItemRequest r join fetch r.requestor where r.id = :id")
+    Optional<ItemRequest> findWithRequestorById(@Param("id") Long id);
+
+    // Первая страница запросов пользователя
+    @Query(REQUEST_VIEW + "where r.requestor.id = :userId " +
+            "order by r.created desc, r.id desc")
+    List<ItemRequestView> findOwn(@Param("userId") Long userId, Limit limit);
+
+    // Следующая страница запросов пользователя после (created, id)
+    @Query(REQUEST_VIEW + "where r.requestor.id = :userId " +
+            "and (r.created < :created or (r.created = :created and r.id < :id)) " +
+            "order by r.created desc, r.id desc")
+    List<ItemRequestView> findOwnAfter(@Param("userId") Long userId,
+                                       @Param("created") LocalDateTime created,
+                                       @Param("id") Long id,
+                                       Limit limit);
+
+    // Первая страница запросов других пользователей
+    @Query(REQUEST_VIEW + "where r.requestor.id <> :userId " +
+            "order by r.created desc, r.id desc")
+    List<ItemRequestView> findOthers(@Param("userId") Long userId, Limit limit);
+
+    // Следующая страница запросов других пользователей после (created, id)
+    @Query(REQUEST_VIEW + "where r.requestor.id <> :userId " +
+            "and (r.created < :created or (r.created = :created and r.id < :id)) " +
+            "order by r.created desc, r.id desc")
+    List<ItemRequestView> findOthersAfter(@Param("userId") Long userId,
+                                          @Param("created") LocalDateTime created,
+                                          @Param("id") Long id,
+                                          Limit limit);
+}
@@ -2,15 +2,16 @@ package ru.practicum.shareit.request.service;
 
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemRequestService {
 
     ItemRequestDto createRequest(Long userId, ItemRequestDto requestDto);
 
-    List<ItemRequestDto> getOwnRequests(Long userId);
+    List<ItemRequestDto> getOwnRequests(Long userId, LocalDateTime afterCreated, Long afterId, int size);
 
-    List<ItemRequestDto> getAllRequests(Long userId);
+    List<ItemRequestDto> getAllRequests(Long userId, LocalDateTime afterCreated, Long afterId, int size);
 
     ItemRequestDto getRequestById(Long userId, Long requestId);
 }
@@ -1,16 +1,27 @@
 package ru.practicum.shareit.request.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.exception.ItemRequestNotFoundException;
+import ru.practicum.shareit.exception.UserNotFoundException;
+import ru.practicum.shareit.item.dto.ItemOfferView;
+import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestView;
+import ru.practicum.shareit.request.dto.OfferedItemDto;
 import ru.practicum.shareit.request.mapper.ItemRequestMapper;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserExistenceCache;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,51 +29,88 @@ import java.util.stream.Collectors;
 public class ItemRequestServiceImpl implements ItemRequestService {
 
     private final ItemRequestRepository itemRequestRepository;
+    private final ItemRepository itemRepository;
     private final UserRepository userRepository;
+    private final UserExistenceCache userExistenceCache;
 
     @Override
+    @Transactional
     public ItemRequestDto createRequest(Long userId, ItemRequestDto requestDto) {
         User requestor = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("Пользователь не найден"));
+                .orElseThrow(() -> new UserNotFoundException(userId));
 
         ItemRequest itemRequest = ItemRequestMapper.toEntity(requestDto);
+        itemRequest.setId(null);
         itemRequest.setRequestor(requestor);
-        itemRequest.setCreated(LocalDateTime.now());
+        // Точность как у TIMESTAMP в БД: значение из ответа должно совпадать с сохранённым, иначе курсор (created, id) сместится
+        itemRequest.setCreated(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
 
-        ItemRequest saved = itemRequestRepository.save(itemRequest);
-        return ItemRequestMapper.toDto(saved);
+        ItemRequestDto saved = ItemRequestMapper.toDto(itemRequestRepository.save(itemRequest));
+        saved.setItems(List.of());
+        return saved;
     }
 
     @Override
-    public List<ItemRequestDto> getOwnRequests(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("Пользователь не найден"));
-
-        return itemRequestRepository.findByRequestorOrderByCreatedDesc(user)
-                .stream()
-                .map(ItemRequestMapper::toDto)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public List<ItemRequestDto> getOwnRequests(Long userId, LocalDateTime afterCreated, Long afterId, int size) {
+        checkUser(userId);
+        checkCursor(afterCreated, afterId);
+
+        List<ItemRequestView> page = afterCreated == null
+                ? itemRequestRepository.findOwn(userId, Limit.of(size))
+                : itemRequestRepository.findOwnAfter(userId, afterCreated, afterId, Limit.of(size));
+        return withItems(page.stream().map(ItemRequestMapper::toDto).collect(Collectors.toList()));
     }
 
     @Override
-    public List<ItemRequestDto> getAllRequests(Long userId) {
-        userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("Пользователь не найден"));
-
-        return itemRequestRepository.findByRequestor_IdNotOrderByCreatedDesc(userId)
-                .stream()
-                .map(ItemRequestMapper::toDto)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public List<ItemRequestDto> getAllRequests(Long userId, LocalDateTime afterCreated, Long afterId, int size) {
+        checkUser(userId);
+        checkCursor(afterCreated, afterId);
+
+        List<ItemRequestView> page = afterCreated == null
+                ? itemRequestRepository.findOthers(userId, Limit.of(size))
+                : itemRequestRepository.findOthersAfter(userId, afterCreated, afterId, Limit.of(size));
+        return withItems(page.stream().map(ItemRequestMapper::toDto).collect(Collectors.toList()));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ItemRequestDto getRequestById(Long userId, Long requestId) {
-        userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("Пользователь не найден"));
+        checkUser(userId);
+
+        ItemRequest itemRequest = itemRequestRepository.findWithRequestorById(requestId)
+                .orElseThrow(() -> new ItemRequestNotFoundException(requestId));
+
+        return withItems(List.of(ItemRequestMapper.toDto(itemRequest))).get(0);
+    }
 
-        ItemRequest itemRequest = itemRequestRepository.findById(requestId)
-                .orElseThrow(() -> new IllegalArgumentException("Запрос не найден"));
+    // Предложенные вещи для всей страницы запросов загружаются одним IN-запросом
+    private List<ItemRequestDto> withItems(List<ItemRequestDto> requests) {
+        if (requests.isEmpty()) {
+            return requests;
+        }
+        List<Long> requestIds = requests.stream().map(ItemRequestDto::getId).collect(Collectors.toList());
+        Map<Long, List<OfferedItemDto>> offers = itemRepository.findOffersByRequestIds(requestIds).stream()
+                .collect(Collectors.groupingBy(ItemOfferView::getRequestId,
+                        Collectors.mapping(ItemRequestMapper::toOfferedItemDto, Collectors.toList())));
+
+        for (ItemRequestDto request : requests) {
+            request.setItems(offers.getOrDefault(request.getId(), List.of()));
+        }
+        return requests;
+    }
+
+    private void checkUser(Long userId) {
+        if (!userExistenceCache.exists(userId)) {
+            throw new UserNotFoundException(userId);
+        }
+    }
 
-        return ItemRequestMapper.toDto(itemRequest);
+    // Курсор - (created, id) последнего запроса предыдущей страницы; задаётся целиком или не задаётся
+    private static void checkCursor(LocalDateTime afterCreated, Long afterId) {
+        if ((afterCreated == null) != (afterId == null)) {
+            throw new IllegalArgumentException("Параметры afterCreated и afterId задаются вместе");
+        }
     }
 }
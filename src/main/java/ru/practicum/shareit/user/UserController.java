@@ -1,20 +1,33 @@
 package ru.practicum.shareit.user;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.practicum.shareit.metrics.ConditionalRequests;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.util.NdjsonWriter;
 
+import java.io.IOException;
 import java.util.List;
 
+@Validated
 @RestController
 @RequestMapping("/users")
 @RequiredArgsConstructor
 public class UserController {
 
     private final UserService userService;
+    private final ObjectMapper objectMapper;
+    private final ConditionalRequests conditionalRequests;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -23,13 +36,26 @@ public class UserController {
     }
 
     @GetMapping("/{id}")
-    public UserDto getUserById(@PathVariable Long id) {
+    public UserDto getUserById(@PathVariable Long id, WebRequest request) {
+        if (conditionalRequests.notModified(request, "user", userService.getUserETag(id))) {
+            return null;
+        }
         return userService.getUserById(id);
     }
 
+    // Постранично по курсору: after - id последнего пользователя предыдущей страницы
     @GetMapping
-    public List<UserDto> getAllUsers() {
-        return userService.getAllUsers();
+    public List<UserDto> getAllUsers(@RequestParam(defaultValue = "0") @PositiveOrZero long after,
+                                     @RequestParam(defaultValue = "10") @Positive int size) {
+        return userService.getAllUsers(after, size);
+    }
+
+    // Выгрузка всех пользователей в формате NDJSON (по одному JSON-объекту на строку) без сборки списка в памяти
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamAllUsers(HttpServletResponse response) throws IOException {
+        NdjsonWriter writer = new NdjsonWriter(objectMapper, response);
+        userService.forEachUser(writer::write);
+        writer.finish();
     }
 
     @PatchMapping("/{id}")
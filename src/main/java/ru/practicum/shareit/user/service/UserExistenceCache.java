@@ -0,0 +1,28 @@
+package ru.practicum.shareit.user.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+/**
+ * Кешируемая проверка существования пользователя из заголовка X-Sharer-User-Id.
+ * Промах кеша обслуживается запросом existsById (его время видно в метрике spring.data.repository.invocations);
+ * записи сбрасываются в {@link UserServiceImpl} при создании, изменении и удалении пользователя.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserExistenceCache {
+
+    public static final String CACHE_NAME = "userExists";
+
+    private final UserRepository userRepository;
+
+    // Без sync = true: синхронная загрузка в Caffeine выполняет запрос к БД внутри блокировки
+    // ConcurrentHashMap.compute и закрепляет виртуальный поток. Параллельный промах лишь повторит дешёвый existsById.
+    // Отрицательный ответ не кешируется: отстающая реплика может ещё не знать только что созданного пользователя
+    @Cacheable(cacheNames = CACHE_NAME, unless = "!#result")
+    public boolean exists(Long userId) {
+        return userRepository.existsById(userId);
+    }
+}
@@ -3,13 +3,19 @@ package ru.practicum.shareit.user.service;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface UserService {
     UserDto createUser(UserDto userDto);
 
     UserDto getUserById(Long id);
 
-    List<UserDto> getAllUsers();
+    Optional<String> getUserETag(Long id);
+
+    List<UserDto> getAllUsers(long afterId, int size);
+
+    void forEachUser(Consumer<UserDto> action);
 
     UserDto updateUser(Long id, UserDto updatedUser);
 
@@ -1,15 +1,22 @@
 package ru.practicum.shareit.user.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.ConflictException;
 import ru.practicum.shareit.exception.UserNotFoundException;
+import ru.practicum.shareit.metrics.ConditionalRequests;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,30 +25,59 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
 
+    @Value("${shareit.export.chunk-size}")
+    private int exportChunkSize;
+
     @Override
+    @CacheEvict(cacheNames = UserExistenceCache.CACHE_NAME, key = "#result.id")
+    @Transactional
     public UserDto createUser(UserDto userDto) {
         if (userRepository.findByEmail(userDto.getEmail()).isPresent()) {
             throw new ConflictException("Email уже используется");
         }
         User newUser = UserMapper.toEntity(userDto);
+        newUser.setId(null);
         userRepository.save(newUser);
         return UserMapper.toDto(newUser);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public UserDto getUserById(Long id) {
         return UserMapper.toDto(userRepository.findById(id)
                 .orElseThrow(() -> new UserNotFoundException(id)));
     }
 
     @Override
-    public List<UserDto> getAllUsers() {
-        return userRepository.findAll().stream()
+    @Transactional(readOnly = true)
+    public Optional<String> getUserETag(Long id) {
+        return userRepository.findVersionById(id).map(ConditionalRequests::etag);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserDto> getAllUsers(long afterId, int size) {
+        return userRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(size)).stream()
                 .map(UserMapper::toDto)
                 .collect(Collectors.toList());
     }
 
+    // Порциями по id, как выгрузки броней и вещей: соединение занято только на время чтения порции
+    @Override
+    public void forEachUser(Consumer<UserDto> action) {
+        List<UserDto> users = userRepository.findDtosAfter(0L, Limit.of(exportChunkSize));
+        while (!users.isEmpty()) {
+            users.forEach(action);
+            if (users.size() < exportChunkSize) {
+                break;
+            }
+            users = userRepository.findDtosAfter(users.get(users.size() - 1).getId(), Limit.of(exportChunkSize));
+        }
+    }
+
     @Override
+    @CacheEvict(cacheNames = UserExistenceCache.CACHE_NAME, key = "#id")
+    @Transactional
     public UserDto updateUser(Long id, UserDto updatedUserDto) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new UserNotFoundException(id));
@@ -62,6 +98,8 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @CacheEvict(cacheNames = UserExistenceCache.CACHE_NAME, key = "#id")
+    @Transactional
     public void deleteUser(Long id) {
         if (!userRepository.existsById(id)) {
             throw new UserNotFoundException(id);
@@ -0,0 +1,53 @@
+package ru.practicum.shareit.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Пишет объекты в тело ответа по одному JSON на строку (NDJSON) по мере их получения, без сборки списка.
+ * Ответ открывается при первой записи: если до неё обработчик бросил исключение, ошибка отдаётся обычным образом.
+ * Длина тела заранее неизвестна, поэтому контейнер передаёт его частями (chunked).
+ */
+public class NdjsonWriter {
+
+    private final ObjectMapper objectMapper;
+    private final HttpServletResponse response;
+    private JsonGenerator generator;
+
+    public NdjsonWriter(ObjectMapper objectMapper, HttpServletResponse response) {
+        this.objectMapper = objectMapper;
+        this.response = response;
+    }
+
+    public void write(Object value) {
+        try {
+            if (generator == null) {
+                open();
+            }
+            generator.writeObject(value);
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Вызывается после успешной выгрузки; пустой результат - пустое тело с кодом 200
+    public void finish() throws IOException {
+        if (generator == null) {
+            open();
+        }
+        generator.close();
+    }
+
+    private void open() throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        generator = objectMapper.getFactory().createGenerator(response.getOutputStream());
+        // Строки разделяются только переводом строки, без стандартного пробела между корневыми значениями
+        generator.setRootValueSeparator(null);
+    }
+}
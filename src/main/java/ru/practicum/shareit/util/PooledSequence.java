@@ -0,0 +1,22 @@
+package ru.practicum.shareit.util;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * id из последовательности БД, выдаваемый блоками (pooled-оптимизатор Hibernate).
+ * Размер блока общий для всех сущностей и задаётся свойством {@code shareit.id.allocation-size}.
+ */
+@IdGeneratorType(PooledSequenceGenerator.class)
+@Retention(RUNTIME)
+@Target(FIELD)
+public @interface PooledSequence {
+
+    // Имя последовательности в БД
+    String value();
+}
@@ -0,0 +1,6 @@
+-- Только для PostgreSQL, выполняется после schema.sql.
+-- Поиск вещей - upper(name/description) LIKE '%текст%': B-tree по такому условию не используется,
+-- а триграммный GIN-индекс по тем же выражениям - да (для текста от трёх символов)
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_items_name_trgm ON items USING gin (upper(name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_items_description_trgm ON items USING gin (upper(description) gin_trgm_ops);
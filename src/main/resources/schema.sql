@@ -1,50 +1,118 @@
 CREATE TABLE IF NOT EXISTS users (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    id BIGINT NOT NULL,
     name VARCHAR(255) NOT NULL,
     email VARCHAR(512) NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0,
     CONSTRAINT pk_users PRIMARY KEY (id),
     CONSTRAINT uq_users_email UNIQUE (email)
 );
 
 CREATE TABLE IF NOT EXISTS item_requests (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    id BIGINT NOT NULL,
     description VARCHAR(1024) NOT NULL,
     requestor_id BIGINT NOT NULL,
     created TIMESTAMP NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0,
     CONSTRAINT pk_item_requests PRIMARY KEY (id),
     CONSTRAINT fk_item_requests_requestor FOREIGN KEY (requestor_id) REFERENCES users(id)
 );
 
 CREATE TABLE IF NOT EXISTS items (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    id BIGINT NOT NULL,
     name VARCHAR(255) NOT NULL,
     description VARCHAR(1024),
     available BOOLEAN NOT NULL,
     owner_id BIGINT NOT NULL,
     request_id BIGINT,
+    version BIGINT NOT NULL DEFAULT 0,
     CONSTRAINT pk_items PRIMARY KEY (id),
     CONSTRAINT fk_items_owner FOREIGN KEY (owner_id) REFERENCES users(id),
     CONSTRAINT fk_items_request FOREIGN KEY (request_id) REFERENCES item_requests(id)
 );
 
 CREATE TABLE IF NOT EXISTS bookings (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    id BIGINT NOT NULL,
     start TIMESTAMP NOT NULL,
     end_date TIMESTAMP NOT NULL,
     item_id BIGINT NOT NULL,
     booker_id BIGINT NOT NULL,
     status VARCHAR(20) NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0,
     CONSTRAINT pk_bookings PRIMARY KEY (id),
     CONSTRAINT fk_bookings_item FOREIGN KEY (item_id) REFERENCES items(id),
     CONSTRAINT fk_bookings_booker FOREIGN KEY (booker_id) REFERENCES users(id)
 );
 
 CREATE TABLE IF NOT EXISTS comments (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    id BIGINT PRIMARY KEY,
     text VARCHAR(1024) NOT NULL,
     item_id BIGINT NOT NULL,
     author_id BIGINT NOT NULL,
     created TIMESTAMP NOT NULL,
     CONSTRAINT fk_comments_item FOREIGN KEY (item_id) REFERENCES items(id),
     CONSTRAINT fk_comments_user FOREIGN KEY (author_id) REFERENCES users(id)
-);
\ No newline at end of file
+);
+
+-- Версии строк (оптимистическая блокировка и ETag) для баз, созданных до их появления
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE item_requests ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE items ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+-- События по броням, ожидающие отправки (outbox); удаляются после доставки
+CREATE TABLE IF NOT EXISTS booking_outbox (
+    id BIGINT NOT NULL,
+    type VARCHAR(20) NOT NULL,
+    booking_id BIGINT NOT NULL,
+    item_id BIGINT NOT NULL,
+    owner_id BIGINT NOT NULL,
+    booker_id BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    start TIMESTAMP NOT NULL,
+    end_date TIMESTAMP NOT NULL,
+    created TIMESTAMP NOT NULL,
+    seq BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    CONSTRAINT pk_booking_outbox PRIMARY KEY (id)
+);
+-- Порядок пересылки: id выдаются экземплярам блоками и не отражают порядок записи, seq - отражает
+ALTER TABLE booking_outbox ADD COLUMN IF NOT EXISTS seq BIGINT GENERATED BY DEFAULT AS IDENTITY;
+CREATE INDEX IF NOT EXISTS idx_booking_outbox_seq ON booking_outbox(seq);
+
+-- Агрегат комментариев вещи, поддерживается в addComment
+CREATE TABLE IF NOT EXISTS item_comment_stats (
+    item_id BIGINT NOT NULL,
+    comment_count BIGINT NOT NULL,
+    last_comment_at TIMESTAMP,
+    CONSTRAINT pk_item_comment_stats PRIMARY KEY (item_id),
+    CONSTRAINT fk_item_comment_stats_item FOREIGN KEY (item_id) REFERENCES items(id)
+);
+
+-- Заполнение агрегата для вещей, комментарии к которым появились до него
+INSERT INTO item_comment_stats (item_id, comment_count, last_comment_at)
+SELECT c.item_id, COUNT(*), MAX(c.created)
+FROM comments c
+WHERE NOT EXISTS (SELECT 1 FROM item_comment_stats s WHERE s.item_id = c.item_id)
+GROUP BY c.item_id;
+
+CREATE INDEX IF NOT EXISTS idx_items_owner ON items(owner_id, id);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_start ON bookings(booker_id, start);
+CREATE INDEX IF NOT EXISTS idx_bookings_item_start ON bookings(item_id, start);
+-- Завершённые аренды пользователя (право оставить комментарий)
+CREATE INDEX IF NOT EXISTS idx_bookings_item_booker_status_end ON bookings(item_id, booker_id, status, end_date);
+
+CREATE INDEX IF NOT EXISTS idx_comments_item_created ON comments(item_id, created);
+
+-- Ленты запросов (курсор по created, id) и вещи, предложенные в ответ на запрос
+CREATE INDEX IF NOT EXISTS idx_item_requests_created ON item_requests(created, id);
+CREATE INDEX IF NOT EXISTS idx_item_requests_requestor_created ON item_requests(requestor_id, created, id);
+CREATE INDEX IF NOT EXISTS idx_items_request ON items(request_id);
+
+-- Шаг - размер блока id (shareit.id.allocation-size), меняется только миграцией при остановленных экземплярах.
+-- Отстающая от данных последовательность сдвигается вперёд при старте приложения (IdGenerationConfig)
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS item_requests_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS items_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS bookings_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS comments_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS booking_outbox_seq START WITH 1 INCREMENT BY 50;
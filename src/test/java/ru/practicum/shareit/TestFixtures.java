@@ -0,0 +1,29 @@
+package ru.practicum.shareit;
+
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Несохранённые сущности для тестов; сохраняются репозиторием или EntityManager теста.
+// Контекст и БД общие для тестовых классов, поэтому email каждый раз уникален
+public class TestFixtures {
+
+    public static User newUser(String name) {
+        return new User(null, name, UUID.randomUUID() + "@shareit.ru");
+    }
+
+    // Доступная вещь без запроса
+    public static Item newItem(String name, User owner) {
+        return new Item(null, name, "description", true, owner, null);
+    }
+
+    // Подтверждённая и уже завершённая аренда: даёт право оставить комментарий
+    public static Booking pastRental(Item item, User booker) {
+        LocalDateTime now = LocalDateTime.now();
+        return new Booking(null, now.minusDays(2), now.minusDays(1), item, booker, BookingStatus.APPROVED);
+    }
+}
@@ -0,0 +1,238 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingPeriod;
+import ru.practicum.shareit.booking.dto.CreateBookingDto;
+import ru.practicum.shareit.booking.event.BookingEvent;
+import ru.practicum.shareit.booking.event.BookingEventType;
+import ru.practicum.shareit.booking.event.BookingOutboxRelay;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.practicum.shareit.TestFixtures.newItem;
+import static ru.practicum.shareit.TestFixtures.newUser;
+
+@SpringBootTest
+class BookingServiceImplTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookingOutboxRelay relay;
+
+    @Autowired
+    private BookingEventCollector eventCollector;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Собирает события, пришедшие из outbox (в том числе из фонового опроса)
+    @TestConfiguration
+    static class EventCollectorConfig {
+        @Bean
+        BookingEventCollector bookingEventCollector() {
+            return new BookingEventCollector();
+        }
+    }
+
+    static class BookingEventCollector {
+        private final Queue<BookingEvent> events = new ConcurrentLinkedQueue<>();
+
+        @EventListener
+        public void onBookingEvent(BookingEvent event) {
+            events.add(event);
+        }
+    }
+
+    @Test
+    void concurrentApprovalsNeverPersistOverlappingBookings() throws Exception {
+        User owner = userRepository.save(newUser("owner"));
+        User booker = userRepository.save(newUser("booker"));
+        Item contested = itemRepository.save(newItem("contested", owner));
+        Item other = itemRepository.save(newItem("other", owner));
+
+        // Все брони первой вещи пересекаются друг с другом, брони второй вещи - нет
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        List<Long> bookingIds = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            bookingIds.add(saveBooking(contested, booker, start.plusHours(i), start.plusHours(i + THREADS)));
+            bookingIds.add(saveBooking(other, booker, start.plusHours(2L * i), start.plusHours(2L * i + 1)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch ready = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (Long bookingId : bookingIds) {
+            Callable<Boolean> approve = () -> {
+                ready.await();
+                try {
+                    bookingService.approveBooking(bookingId, owner.getId(), true);
+                    return true;
+                } catch (RuntimeException e) {
+                    return false;
+                }
+            };
+            results.add(executor.submit(approve));
+        }
+        ready.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        for (Future<Boolean> result : results) {
+            result.get();
+        }
+
+        List<BookingPeriod> approvedContested = approved(contested, start);
+        assertEquals(1, approvedContested.size());
+        List<BookingPeriod> approvedOther = approved(other, start);
+        assertEquals(THREADS, approvedOther.size());
+        assertNoOverlaps(approvedOther);
+    }
+
+    @Test
+    void batchCreatesValidEntriesAndReportsErrorsPerEntry() {
+        User owner = userRepository.save(newUser("owner"));
+        User booker = userRepository.save(newUser("booker"));
+        Item item = itemRepository.save(newItem("batch", owner));
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        bookingService.approveBooking(saveBooking(item, booker, start, start.plusHours(2)), owner.getId(), true);
+
+        List<BookingBatchResultDto> results = bookingService.createBookings(booker.getId(), List.of(
+                createDto(item.getId(), start.plusHours(1), start.plusHours(3)),
+                createDto(item.getId(), start.plusHours(3), start.plusHours(4)),
+                createDto(-1L, start.plusHours(3), start.plusHours(4)),
+                createDto(item.getId(), start.plusHours(4), start.plusHours(4))));
+
+        assertEquals(4, results.size());
+        assertNotNull(results.get(0).getError());
+        assertNull(results.get(1).getError());
+        assertEquals(BookingStatus.WAITING, results.get(1).getBooking().getStatus());
+        assertNotNull(results.get(2).getError());
+        assertNotNull(results.get(3).getError());
+        assertTrue(bookingRepository.existsById(results.get(1).getBooking().getId()));
+    }
+
+    @Test
+    void bookingChangesAreRelayedFromOutboxToEventBus() throws Exception {
+        User owner = userRepository.save(newUser("owner"));
+        User booker = userRepository.save(newUser("booker"));
+        Item item = itemRepository.save(newItem("relayed", owner));
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+
+        Long bookingId = bookingService.createBooking(booker.getId(),
+                createDto(item.getId(), start, start.plusHours(1))).getId();
+        bookingService.approveBooking(bookingId, owner.getId(), true);
+        bookingService.deleteBooking(bookingId);
+
+        List<BookingEventType> types = new ArrayList<>();
+        for (int attempt = 0; attempt < 50 && types.size() < 3; attempt++) {
+            relay.relay();
+            types = eventCollector.events.stream()
+                    .filter(event -> event.getBookingId().equals(bookingId))
+                    .map(BookingEvent::getType)
+                    .toList();
+            if (types.size() < 3) {
+                Thread.sleep(100);
+            }
+        }
+        assertEquals(List.of(BookingEventType.CREATED, BookingEventType.APPROVED, BookingEventType.DELETED), types);
+        BookingEvent created = eventCollector.events.stream()
+                .filter(event -> event.getBookingId().equals(bookingId))
+                .findFirst().orElseThrow();
+        assertEquals(owner.getId(), created.getOwnerId());
+        assertEquals(booker.getId(), created.getBookerId());
+    }
+
+    // Экземпляры берут id блоками: событие, записанное позже, может получить меньший id из блока другого экземпляра
+    @Test
+    void outboxIsRelayedInWriteOrderNotIdOrder() {
+        long bookingId = -1;
+        insertOutboxRow(-1, bookingId, BookingEventType.CREATED, BookingStatus.WAITING);
+        insertOutboxRow(-2, bookingId, BookingEventType.APPROVED, BookingStatus.APPROVED);
+
+        while (relay.relay() > 0) {
+            // пересылаем всё, что накопилось в общей БД
+        }
+
+        List<BookingEventType> types = eventCollector.events.stream()
+                .filter(event -> event.getBookingId().equals(bookingId))
+                .map(BookingEvent::getType)
+                .toList();
+        assertEquals(List.of(BookingEventType.CREATED, BookingEventType.APPROVED), types);
+    }
+
+    private void insertOutboxRow(long id, long bookingId, BookingEventType type, BookingStatus status) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO booking_outbox (id, type, booking_id, item_id, owner_id, booker_id, status, "
+                        + "start, end_date, created) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                id, type.name(), bookingId, -1, -1, -1, status.name(), now, now, now);
+    }
+
+    private static CreateBookingDto createDto(Long itemId, LocalDateTime start, LocalDateTime end) {
+        CreateBookingDto dto = new CreateBookingDto();
+        dto.setItemId(itemId);
+        dto.setStart(start);
+        dto.setEnd(end);
+        return dto;
+    }
+
+    private List<BookingPeriod> approved(Item item, LocalDateTime start) {
+        return bookingRepository.findPeriods(item.getId(), BookingStatus.APPROVED, start, start.plusDays(30));
+    }
+
+    private static void assertNoOverlaps(List<BookingPeriod> periods) {
+        for (BookingPeriod first : periods) {
+            for (BookingPeriod second : periods) {
+                if (first != second) {
+                    assertFalse(first.getStart().isBefore(second.getEnd())
+                            && second.getStart().isBefore(first.getEnd()));
+                }
+            }
+        }
+    }
+
+    private Long saveBooking(Item item, User booker, LocalDateTime start, LocalDateTime end) {
+        return bookingRepository.save(new Booking(null, start, end, item, booker, BookingStatus.WAITING)).getId();
+    }
+}
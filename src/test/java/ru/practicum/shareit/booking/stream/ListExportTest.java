@@ -0,0 +1,164 @@
+package ru.practicum.shareit.booking.stream;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.shareit.TestFixtures.newItem;
+import static ru.practicum.shareit.TestFixtures.newUser;
+
+// Порции по 2 записи, чтобы выгрузка проходила через несколько запросов к БД
+@SpringBootTest(properties = "shareit.export.chunk-size=2")
+@AutoConfigureMockMvc
+class ListExportTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void bookingsAreStreamedNewestFirstAcrossChunks() throws Exception {
+        User owner = userRepository.save(newUser("owner"));
+        User booker = userRepository.save(newUser("booker"));
+        Item item = itemRepository.save(newItem("drill", owner));
+        List<Long> expected = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        for (int i = 0; i < 5; i++) {
+            // Две брони с одинаковым началом: порядок между ними задаёт id
+            LocalDateTime bookingStart = start.plusDays(i / 2);
+            expected.add(0, bookingRepository.save(new Booking(null, bookingStart, bookingStart.plusHours(1),
+                    item, booker, BookingStatus.WAITING)).getId());
+        }
+
+        String body = mvc.perform(get("/bookings/owner")
+                        .header("X-Sharer-User-Id", owner.getId())
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals(expected, ids(body));
+    }
+
+    @Test
+    void errorsBeforeFirstLineKeepTheirStatus() throws Exception {
+        User booker = userRepository.save(newUser("booker"));
+
+        mvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", booker.getId())
+                        .param("state", "SOMETIMES")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isBadRequest());
+
+        mvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", Long.MAX_VALUE)
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isNotFound());
+
+        mvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", booker.getId())
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void foundItemsAreStreamedAcrossChunks() throws Exception {
+        User owner = userRepository.save(newUser("owner"));
+        String word = "lathe" + UUID.randomUUID().toString().substring(0, 8);
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            expected.add(itemRepository.save(new Item(null, word + i, "description", true, owner, null)).getId());
+        }
+        itemRepository.save(new Item(null, word, "unavailable", false, owner, null));
+
+        String body = mvc.perform(get("/items/search")
+                        .header("X-Sharer-User-Id", owner.getId())
+                        .param("text", word)
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals(expected, ids(body));
+    }
+
+    @Test
+    void connectionIsNotHeldWhileLinesAreWritten() {
+        User owner = userRepository.save(newUser("owner"));
+        User booker = userRepository.save(newUser("booker"));
+        Item item = itemRepository.save(newItem("saw", owner));
+        for (int i = 0; i < 3; i++) {
+            LocalDateTime bookingStart = LocalDateTime.now().plusDays(i + 1);
+            bookingRepository.save(new Booking(null, bookingStart, bookingStart.plusHours(1),
+                    item, booker, BookingStatus.WAITING));
+        }
+
+        // Как при open-in-view: менеджер сущностей привязан к потоку на всё время ответа
+        TransactionSynchronizationManager.bindResource(entityManagerFactory,
+                new EntityManagerHolder(entityManagerFactory.createEntityManager()));
+        List<Integer> active = new ArrayList<>();
+        try {
+            bookingService.forEachBookingByBooker(booker.getId(), "ALL", booking ->
+                    active.add(((HikariDataSource) dataSource).getHikariPoolMXBean().getActiveConnections()));
+        } finally {
+            EntityManagerHolder holder = (EntityManagerHolder)
+                    TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            holder.getEntityManager().close();
+        }
+
+        assertEquals(3, active.size());
+        assertTrue(active.stream().allMatch(count -> count == 0), "active connections: " + active);
+    }
+
+    private List<Long> ids(String body) {
+        List<Long> ids = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            int start = line.indexOf("\"id\":") + 5;
+            ids.add(Long.parseLong(line.substring(start, line.indexOf(',', start))));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,120 @@
+package ru.practicum.shareit.booking.stream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import ru.practicum.shareit.booking.dto.CreateBookingDto;
+import ru.practicum.shareit.booking.event.BookingOutboxRelay;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.practicum.shareit.TestFixtures.newItem;
+import static ru.practicum.shareit.TestFixtures.newUser;
+
+// Внешний получатель - файл: подписки получают события из внутренней шины при любом shareit.outbox.sink
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "shareit.outbox.sink=file")
+class OwnerBookingStreamsTest {
+
+    private static final Path EVENTS;
+
+    static {
+        try {
+            EVENTS = Files.createTempDirectory("shareit-outbox").resolve("booking-events.ndjson");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void outboxFile(DynamicPropertyRegistry registry) {
+        registry.add("shareit.outbox.file", EVENTS::toString);
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingOutboxRelay relay;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void ownerReceivesNewAndDecidedBookings() throws Exception {
+        User owner = userRepository.save(newUser("owner"));
+        User booker = userRepository.save(newUser("booker"));
+        Item item = itemRepository.save(newItem("streamed", owner));
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/bookings/owner/stream"))
+                .header("X-Sharer-User-Id", owner.getId().toString())
+                .header("Accept", "text/event-stream")
+                .build();
+        HttpResponse<InputStream> response = HttpClient.newHttpClient()
+                .send(request, HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals(200, response.statusCode());
+
+        // Читаем имена событий, пока не придут оба
+        CompletableFuture<List<String>> received = CompletableFuture.supplyAsync(() -> {
+            List<String> names = new ArrayList<>();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+                String line;
+                while (names.size() < 2 && (line = reader.readLine()) != null) {
+                    if (line.startsWith("event:")) {
+                        names.add(line.substring("event:".length()).trim());
+                    }
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            return names;
+        });
+
+        CreateBookingDto dto = new CreateBookingDto();
+        dto.setItemId(item.getId());
+        dto.setStart(LocalDateTime.now().plusDays(1));
+        dto.setEnd(LocalDateTime.now().plusDays(2));
+        Long bookingId = bookingService.createBooking(booker.getId(), dto).getId();
+        bookingService.approveBooking(bookingId, owner.getId(), false);
+        relay.relay();
+
+        List<String> names = received.get(10, TimeUnit.SECONDS);
+        assertEquals(List.of("CREATED", "REJECTED"), names);
+        assertTrue(received.isDone());
+        assertTrue(Files.readAllLines(EVENTS).stream()
+                .anyMatch(line -> line.contains("\"bookingId\":" + bookingId + ",")
+                        && line.contains("\"type\":\"REJECTED\"")));
+    }
+}
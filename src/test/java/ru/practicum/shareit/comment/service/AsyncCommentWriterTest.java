@@ -0,0 +1,207 @@
+package ru.practicum.shareit.comment.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ValidationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.comment.dto.CommentDto;
+import ru.practicum.shareit.comment.dto.CreateCommentDto;
+import ru.practicum.shareit.comment.model.ItemCommentStats;
+import ru.practicum.shareit.comment.repository.ItemCommentStatsRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.shareit.TestFixtures.newItem;
+import static ru.practicum.shareit.TestFixtures.newUser;
+import static ru.practicum.shareit.TestFixtures.pastRental;
+
+@SpringBootTest(properties = "shareit.comments.async.enabled=true")
+@AutoConfigureMockMvc
+class AsyncCommentWriterTest {
+
+    private static final long TIMEOUT_MS = 10_000;
+
+    private static final Path JOURNAL;
+
+    static {
+        try {
+            JOURNAL = Files.createTempDirectory("shareit-comments").resolve("comments.ndjson");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void journal(DynamicPropertyRegistry registry) {
+        registry.add("shareit.comments.async.journal", JOURNAL::toString);
+    }
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private AsyncCommentWriter writer;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ItemCommentStatsRepository statsRepository;
+
+    private User booker;
+
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        User owner = userRepository.save(newUser("owner"));
+        booker = userRepository.save(newUser("booker"));
+        item = itemRepository.save(newItem("drill", owner));
+        bookingRepository.save(pastRental(item, booker));
+    }
+
+    @Test
+    void acceptedCommentsAreWrittenInBackground() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            mvc.perform(post("/items/{itemId}/comment", item.getId())
+                            .header("X-Sharer-User-Id", booker.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"text\": \"comment" + i + "\"}"))
+                    .andExpect(status().isAccepted())
+                    .andExpect(jsonPath("$.id").doesNotExist())
+                    .andExpect(jsonPath("$.authorName").value("booker"));
+        }
+
+        awaitCommentCount(20);
+        mvc.perform(get("/items/{itemId}", item.getId()).header("X-Sharer-User-Id", booker.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.commentCount").value(20))
+                .andExpect(jsonPath("$.comments[0].text").value("comment19"));
+    }
+
+    @Test
+    void concurrentAcceptsShareJournalSyncs() throws Exception {
+        CreateCommentDto body = new CreateCommentDto();
+        body.setText("burst");
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<CommentDto>> accepted = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                accepted.add(executor.submit(() -> itemService.acceptComment(booker.getId(), item.getId(), body)));
+            }
+            for (Future<CommentDto> future : accepted) {
+                assertEquals("burst", future.get().getText());
+            }
+        }
+
+        awaitCommentCount(100);
+    }
+
+    @Test
+    void commentWithoutRentalIsNotJournaled() throws Exception {
+        User stranger = userRepository.save(newUser("stranger"));
+        CreateCommentDto body = new CreateCommentDto();
+        body.setText("not allowed");
+
+        assertThrows(ValidationException.class,
+                () -> itemService.acceptComment(stranger.getId(), item.getId(), body));
+        assertFalse(Files.readString(JOURNAL).contains("\"itemId\":" + item.getId() + ","));
+    }
+
+    @Test
+    void journalIsReplayedOnStartWithoutDuplicates() throws Exception {
+        String response = mvc.perform(post("/items/{itemId}/comment", item.getId())
+                        .header("X-Sharer-User-Id", booker.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"text\": \"written\"}"))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+        CommentDto written = objectMapper.readValue(response, CommentDto.class);
+        awaitCommentCount(1);
+        writer.stop();
+
+        // Журнал как после падения: уже записанный комментарий и пять, до которых поток не дошёл
+        List<String> lines = new ArrayList<>();
+        lines.add(journalLine(written.getText(), written.getCreated()));
+        LocalDateTime created = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        for (int i = 0; i < 5; i++) {
+            lines.add(journalLine("replayed" + i, created.plusNanos(i * 1000L)));
+        }
+        Files.write(JOURNAL, lines, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        DistributionSummary batches = registry.get(AsyncCommentWriter.METRIC_PREFIX + ".batch").summary();
+        long batchesBefore = batches.count();
+        double commentsBefore = batches.totalAmount();
+        writer.start();
+
+        assertEquals(6, statsRepository.findById(item.getId()).orElseThrow().getCommentCount());
+        assertEquals(1, batches.count() - batchesBefore);
+        assertEquals(5, batches.totalAmount() - commentsBefore);
+        assertEquals(0, Files.size(JOURNAL));
+    }
+
+    private String journalLine(String text, LocalDateTime created) throws IOException {
+        return objectMapper.writeValueAsString(
+                new AsyncCommentWriter.Entry(item.getId(), booker.getId(), booker.getName(), text, created));
+    }
+
+    private void awaitCommentCount(long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        long count = 0;
+        while (System.currentTimeMillis() < deadline) {
+            count = statsRepository.findById(item.getId()).map(ItemCommentStats::getCommentCount).orElse(0L);
+            if (count == expected) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        assertEquals(expected, count);
+    }
+}
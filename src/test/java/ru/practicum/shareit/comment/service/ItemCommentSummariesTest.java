@@ -0,0 +1,81 @@
+package ru.practicum.shareit.comment.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.comment.dto.CreateCommentDto;
+import ru.practicum.shareit.comment.dto.ItemCommentSummary;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static ru.practicum.shareit.TestFixtures.newItem;
+import static ru.practicum.shareit.TestFixtures.newUser;
+import static ru.practicum.shareit.TestFixtures.pastRental;
+
+@SpringBootTest
+class ItemCommentSummariesTest {
+
+    @Autowired
+    private ItemCommentSummaries summaries;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    private User booker;
+
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        User owner = userRepository.save(newUser("owner"));
+        booker = userRepository.save(newUser("booker"));
+        item = itemRepository.save(newItem("drill", owner));
+        bookingRepository.save(pastRental(item, booker));
+    }
+
+    // Загрузка прочитала строки до фиксации комментария, а в кеш попала уже после удаления сводки
+    @Test
+    void loadFinishedAfterCommentCommitIsNotServed() {
+        Cache<Object, Object> cache = ((CaffeineCache) cacheManager.getCache(ItemCommentSummaries.CACHE_NAME))
+                .getNativeCache();
+        Long versionBefore = itemRepository.findVersionById(item.getId()).orElseThrow().getVersion();
+        Map<Long, ItemCommentSummary> before = summaries.getAll(Map.of(item.getId(), versionBefore));
+        assertEquals(0, before.get(item.getId()).getCount());
+        Object loadedBeforeCommit = cache.getIfPresent(item.getId());
+        assertNotNull(loadedBeforeCommit);
+
+        CreateCommentDto body = new CreateCommentDto();
+        body.setText("after load");
+        itemService.addComment(booker.getId(), item.getId(), body);
+        cache.put(item.getId(), loadedBeforeCommit);
+
+        ItemDto read = itemService.getItemById(booker.getId(), item.getId());
+        assertEquals(1, read.getCommentCount());
+        assertEquals("after load", read.getComments().get(0).getText());
+    }
+}
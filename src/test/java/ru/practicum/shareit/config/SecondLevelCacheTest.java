@@ -0,0 +1,142 @@
+package ru.practicum.shareit.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.shareit.TestFixtures.newItem;
+import static ru.practicum.shareit.TestFixtures.newUser;
+import static ru.practicum.shareit.TestFixtures.pastRental;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class SecondLevelCacheTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Test
+    void bookingCreationReadsUserAndItemFromCache() throws Exception {
+        User owner = userRepository.save(newUser("owner"));
+        User booker = userRepository.save(newUser("booker"));
+        Item item = itemRepository.save(newItem("drill", owner));
+
+        CacheRegionStatistics items = regionStatistics(Item.class.getName());
+        CacheRegionStatistics users = regionStatistics(User.class.getName());
+        long itemHits = items.getHitCount();
+        long userHits = users.getHitCount();
+
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        mvc.perform(post("/bookings")
+                        .header("X-Sharer-User-Id", booker.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"itemId\": " + item.getId() + ", \"start\": \"" + start
+                                + "\", \"end\": \"" + start.plusDays(1) + "\"}"))
+                .andExpect(status().isCreated());
+
+        // Автор брони и вещь сохранены в кеш при вставке и повторно из БД не читаются
+        assertTrue(items.getHitCount() > itemHits);
+        assertTrue(users.getHitCount() > userHits);
+        // Брони часто меняются и не кешируются
+        assertFalse(List.of(statistics().getSecondLevelCacheRegionNames()).contains(Booking.class.getName()));
+        assertNotNull(registry.find("hibernate.second.level.cache.requests")
+                .tag("region", Item.class.getName()).functionCounter());
+    }
+
+    @Test
+    void cachedUserFollowsUpdates() throws Exception {
+        User user = userRepository.save(newUser("user"));
+        mvc.perform(get("/users/{id}", user.getId())).andExpect(status().isOk());
+
+        mvc.perform(patch("/users/{id}", user.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"renamed\"}"))
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/users/{id}", user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("renamed"));
+    }
+
+    // Комментарий увеличивает версию вещи в обход кеша: после него правка вещи не должна получать 409
+    @Test
+    void itemCanBeUpdatedAfterComment() throws Exception {
+        User owner = userRepository.save(newUser("owner"));
+        User booker = userRepository.save(newUser("booker"));
+        Item item = itemRepository.save(newItem("drill", owner));
+        bookingRepository.save(pastRental(item, booker));
+        mvc.perform(get("/items/{id}", item.getId()).header("X-Sharer-User-Id", owner.getId()))
+                .andExpect(status().isOk());
+
+        mvc.perform(post("/items/{id}/comment", item.getId())
+                        .header("X-Sharer-User-Id", booker.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"text\": \"good drill\"}"))
+                .andExpect(status().isOk());
+
+        mvc.perform(patch("/items/{id}", item.getId())
+                        .header("X-Sharer-User-Id", owner.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"available\": false}"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void findByEmailIsAnsweredFromQueryCache() {
+        User user = userRepository.save(newUser("user"));
+        userRepository.findByEmail(user.getEmail());
+
+        long hits = statistics().getQueryCacheHitCount();
+        assertEquals(user.getId(), userRepository.findByEmail(user.getEmail()).orElseThrow().getId());
+        assertEquals(hits + 1, statistics().getQueryCacheHitCount());
+    }
+
+    private CacheRegionStatistics regionStatistics(String region) {
+        return statistics().getDomainDataRegionStatistics(region);
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -0,0 +1,182 @@
+package ru.practicum.shareit.item.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ValidationException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.comment.dto.CommentDto;
+import ru.practicum.shareit.comment.dto.CreateCommentDto;
+import ru.practicum.shareit.comment.model.Comment;
+import ru.practicum.shareit.comment.model.ItemCommentStats;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.metrics.ItemSearchMetrics;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static ru.practicum.shareit.TestFixtures.newUser;
+import static ru.practicum.shareit.TestFixtures.pastRental;
+
+// Статистика Hibernate общая на приложение: фоновая пересылка outbox отключена, чтобы не искажать подсчёт запросов
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "shareit.outbox.poll-interval=3600000"})
+@Transactional
+class ItemServiceImplTest {
+
+    private static final int ITEMS = 12;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private Statistics statistics;
+
+    private User owner;
+
+    private User booker;
+
+    private Item firstItem;
+
+    @BeforeEach
+    void setUp() {
+        statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+        owner = persistUser("owner");
+        booker = persistUser("booker");
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < ITEMS; i++) {
+            Item item = new Item(null, "item" + i, "description" + i, true, owner, null);
+            em.persist(item);
+            if (firstItem == null) {
+                firstItem = item;
+            }
+            em.persist(pastRental(item, booker));
+            em.persist(new Booking(null, now.plusDays(1), now.plusDays(2), item, booker, BookingStatus.APPROVED));
+            em.persist(new Booking(null, now.plusHours(1), now.plusHours(2), item, booker, BookingStatus.REJECTED));
+
+            Comment comment = new Comment();
+            comment.setText("comment" + i);
+            comment.setItem(item);
+            comment.setAuthor(booker);
+            comment.setCreated(now.minusHours(1));
+            em.persist(comment);
+            em.persist(new ItemCommentStats(item.getId(), 1, comment.getCreated()));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void getAllItemsByUserUsesConstantNumberOfStatements() {
+        // Прогрев кеша проверки пользователя, чтобы оба замера шли в одинаковых условиях
+        itemService.getAllItemsByUser(owner.getId(), 0, 1);
+
+        long smallPage = countStatements(2);
+        long largePage = countStatements(ITEMS);
+
+        assertEquals(smallPage, largePage);
+    }
+
+    @Test
+    void getAllItemsByUserFillsBookingsAndComments() {
+        List<ItemDto> items = itemService.getAllItemsByUser(owner.getId(), 0, ITEMS);
+
+        assertEquals(ITEMS, items.size());
+        for (ItemDto item : items) {
+            assertNotNull(item.getLastBooking());
+            assertNotNull(item.getNextBooking());
+            assertEquals(1, item.getComments().size());
+            assertEquals(1, item.getCommentCount());
+            assertEquals("booker", item.getComments().get(0).getAuthorName());
+        }
+    }
+
+    @Test
+    void addCommentUpdatesSummaryAndCommentsArePaged() {
+        CreateCommentDto body = new CreateCommentDto();
+        body.setText("newest");
+        itemService.addComment(booker.getId(), firstItem.getId(), body);
+
+        ItemDto item = itemService.getItemById(booker.getId(), firstItem.getId());
+        assertEquals(2, item.getCommentCount());
+        assertEquals("newest", item.getComments().get(0).getText());
+        assertEquals(item.getComments().get(0).getCreated(), item.getLastCommentAt());
+
+        List<CommentDto> secondPage = itemService.getComments(booker.getId(), firstItem.getId(), 1, 1);
+        assertEquals(1, secondPage.size());
+        assertEquals("comment0", secondPage.get(0).getText());
+    }
+
+    @Test
+    void rejectedRentalDoesNotAllowComment() {
+        User rejected = persistUser("rejected");
+        LocalDateTime now = LocalDateTime.now();
+        em.persist(new Booking(null, now.minusDays(2), now.minusDays(1), firstItem, rejected, BookingStatus.REJECTED));
+        em.flush();
+
+        CreateCommentDto body = new CreateCommentDto();
+        body.setText("not allowed");
+        assertThrows(ValidationException.class,
+                () -> itemService.addComment(rejected.getId(), firstItem.getId(), body));
+    }
+
+    @Test
+    void searchIsCaseInsensitiveAndCountsHits() {
+        String token = UUID.randomUUID().toString();
+        em.persist(new Item(null, "Drill " + token, "description", true, owner, null));
+        em.persist(new Item(null, "hammer", "for " + token + " nails", true, owner, null));
+        em.persist(new Item(null, "Drill " + token, "unavailable", false, owner, null));
+        em.flush();
+        Counter hits = registry.get(ItemSearchMetrics.METRIC_NAME + ".results").tag("result", "hit").counter();
+        Counter empty = registry.get(ItemSearchMetrics.METRIC_NAME + ".results").tag("result", "empty").counter();
+        double hitsBefore = hits.count();
+        double emptyBefore = empty.count();
+
+        List<ItemDto> found = itemService.searchItems(token.toUpperCase(), 0, 10);
+        assertEquals(2, found.size());
+        // Та же форма, что у выгрузки поиска: со сводкой комментариев, без броней
+        assertEquals(0L, found.get(0).getCommentCount());
+        assertNull(found.get(0).getLastBooking());
+        assertEquals(1, itemService.searchItems(token, 1, 10).size());
+        assertEquals(0, itemService.searchItems(UUID.randomUUID().toString(), 0, 10).size());
+
+        assertEquals(2, hits.count() - hitsBefore);
+        assertEquals(1, empty.count() - emptyBefore);
+    }
+
+    private long countStatements(int pageSize) {
+        em.clear();
+        statistics.clear();
+        List<ItemDto> items = itemService.getAllItemsByUser(owner.getId(), 0, pageSize);
+        assertEquals(pageSize, items.size());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private User persistUser(String name) {
+        User user = newUser(name);
+        em.persist(user);
+        return user;
+    }
+}
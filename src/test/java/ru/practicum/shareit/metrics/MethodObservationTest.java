@@ -0,0 +1,72 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.shareit.TestFixtures.newUser;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class MethodObservationTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void requestIsTimedOnEveryLayer() throws Exception {
+        User user = userRepository.save(newUser("user"));
+
+        // Контекст общий с другими тестами, поэтому проверяется прирост
+        long before = serviceCalls();
+        mvc.perform(get("/users/{id}", user.getId())).andExpect(status().isOk());
+        assertEquals(before + 1, serviceCalls());
+
+        Timer service = registry.get(MethodObservationPostProcessor.SERVICE_OBSERVATION)
+                .tag("component", "userServiceImpl")
+                .tag("method", "getUserById")
+                .timer();
+
+        Timer repository = registry.get(MethodObservationPostProcessor.REPOSITORY_OBSERVATION)
+                .tag("component", "userRepository")
+                .tag("method", "findById")
+                .timer();
+        assertTrue(repository.count() >= 1);
+
+        Timer dbTime = registry.get(StatementCountInterceptor.TIME_METRIC_NAME)
+                .tag("uri", "/users/{id}")
+                .timer();
+        assertTrue(dbTime.totalTime(TimeUnit.NANOSECONDS) > 0);
+        assertTrue(service.totalTime(TimeUnit.NANOSECONDS) >= repository.max(TimeUnit.NANOSECONDS));
+
+        // Перцентили видны в /actuator/metrics отдельными датчиками с тегом phi
+        assertTrue(registry.find(MethodObservationPostProcessor.SERVICE_OBSERVATION + ".percentile")
+                .tag("phi", "0.99").gauges().size() > 0);
+    }
+
+    private long serviceCalls() {
+        Timer timer = registry.find(MethodObservationPostProcessor.SERVICE_OBSERVATION)
+                .tag("component", "userServiceImpl")
+                .tag("method", "getUserById")
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
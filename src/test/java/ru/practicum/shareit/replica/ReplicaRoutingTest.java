@@ -0,0 +1,121 @@
+package ru.practicum.shareit.replica;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.shareit.TestFixtures.newUser;
+
+// Реплика - отдельная H2 в памяти со схемой, но без данных: это реплика с бесконечным отставанием,
+// поэтому по ответу видно, из какой БД он прочитан. Кеш второго уровня выключен, иначе часть ответов
+// приходила бы из него
+@SpringBootTest(properties = {
+        "shareit.replicas.urls=" + ReplicaRoutingTest.REPLICA_URL + ";IFEXISTS=TRUE",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false"})
+@AutoConfigureMockMvc
+class ReplicaRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:shareit-replica";
+
+    static {
+        createReplica();
+    }
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void readsGoToReplicaExceptForRecentWriter() throws Exception {
+        User writer = userRepository.save(newUser("writer"));
+        User reader = userRepository.save(newUser("reader"));
+
+        // Запись и проверки внутри неё - в основной БД
+        String created = mvc.perform(post("/items")
+                        .header("X-Sharer-User-Id", writer.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"drill\", \"description\": \"description\", \"available\": true}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        long itemId = objectMapper.readTree(created).get("id").asLong();
+
+        // Автор записи в своём окне читает с основной БД
+        double primaryBefore = connections("primary");
+        mvc.perform(get("/items/{id}", itemId).header("X-Sharer-User-Id", writer.getId()))
+                .andExpect(status().isOk());
+        assertTrue(connections("primary") > primaryBefore);
+
+        // Остальные читают с реплики, где этих строк нет
+        double replicaBefore = connections("replica");
+        mvc.perform(get("/items/{id}", itemId).header("X-Sharer-User-Id", reader.getId()))
+                .andExpect(status().isNotFound());
+        mvc.perform(get("/users/{id}", writer.getId()))
+                .andExpect(status().isNotFound());
+        assertTrue(connections("replica") > replicaBefore);
+    }
+
+    @Test
+    void unavailableReplicaIsEjectedUntilItRecovers() throws Exception {
+        User user = userRepository.save(newUser("user"));
+        assertEquals(1, routingDataSource.healthyReplicas());
+
+        try (Connection connection = DriverManager.getConnection(REPLICA_URL, "shareit", "shareit")) {
+            connection.createStatement().execute("SHUTDOWN");
+        }
+        routingDataSource.checkReplicas();
+        assertEquals(0, routingDataSource.healthyReplicas());
+
+        mvc.perform(get("/users/{id}", user.getId()))
+                .andExpect(status().isOk());
+
+        createReplica();
+        routingDataSource.checkReplicas();
+        assertEquals(1, routingDataSource.healthyReplicas());
+        mvc.perform(get("/users/{id}", user.getId()))
+                .andExpect(status().isNotFound());
+    }
+
+    private double connections(String target) {
+        return registry.get(ReplicaRoutingDataSource.METRIC_NAME).tag("target", target).counter().count();
+    }
+
+    private static void createReplica() {
+        // DB_CLOSE_DELAY=-1: БД живёт в памяти до SHUTDOWN, а не до закрытия последнего соединения
+        try (Connection connection = DriverManager.getConnection(REPLICA_URL + ";DB_CLOSE_DELAY=-1",
+                "shareit", "shareit")) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("schema.sql"));
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package ru.practicum.shareit.request.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.practicum.shareit.TestFixtures.newUser;
+
+@SpringBootTest
+@Transactional
+class ItemRequestServiceImplTest {
+
+    private static final int REQUESTS = 5;
+
+    @Autowired
+    private ItemRequestService itemRequestService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void ownRequestsArePagedByCursorWithOfferedItems() {
+        User requestor = userRepository.save(newUser("requestor"));
+        User owner = userRepository.save(newUser("owner"));
+        List<Long> created = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            ItemRequestDto request = new ItemRequestDto();
+            request.setDescription("request" + i);
+            created.add(itemRequestService.createRequest(requestor.getId(), request).getId());
+        }
+        Long answered = created.get(REQUESTS - 1);
+        addItem(owner, "offer1", answered);
+        addItem(owner, "offer2", answered);
+
+        List<ItemRequestDto> first = itemRequestService.getOwnRequests(requestor.getId(), null, null, 2);
+        ItemRequestDto last = first.get(first.size() - 1);
+        List<ItemRequestDto> rest = itemRequestService.getOwnRequests(requestor.getId(),
+                last.getCreated(), last.getId(), 10);
+
+        // Новые первыми, без пропусков и повторов на стыке страниц
+        List<Long> pagedIds = new ArrayList<>();
+        first.forEach(request -> pagedIds.add(request.getId()));
+        rest.forEach(request -> pagedIds.add(request.getId()));
+        assertEquals(created.reversed(), pagedIds);
+
+        assertEquals(answered, first.get(0).getId());
+        assertEquals(List.of("offer1", "offer2"),
+                first.get(0).getItems().stream().map(item -> item.getName()).toList());
+        assertTrue(first.get(1).getItems().isEmpty());
+
+        // Чужие запросы владелец видит, свои - нет
+        assertTrue(itemRequestService.getAllRequests(owner.getId(), null, null, 100).stream()
+                .anyMatch(request -> request.getId().equals(answered)));
+        assertTrue(itemRequestService.getAllRequests(requestor.getId(), null, null, 100).stream()
+                .noneMatch(request -> created.contains(request.getId())));
+    }
+
+    private void addItem(User owner, String name, Long requestId) {
+        ItemDto item = new ItemDto();
+        item.setName(name);
+        item.setDescription("description");
+        item.setAvailable(true);
+        item.setRequestId(requestId);
+        itemService.addItem(owner.getId(), item);
+    }
+}